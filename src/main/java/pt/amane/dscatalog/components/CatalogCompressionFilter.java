@@ -0,0 +1,187 @@
+package pt.amane.dscatalog.components;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.github.luben.zstd.Zstd;
+
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.services.events.CatalogChangeStream;
+
+/**
+ * Compresses GET responses of /products and /categories with zstd or gzip
+ * (whichever the client accepts, zstd first) and keeps the compressed bytes in
+ * the "responses" cache. A repeated request for the same URL, Accept and
+ * encoding is answered from the cache without running the controller or
+ * compressing again. Catalog writes clear the cache after commit, and each
+ * entry is tagged with the change-stream sequence read before rendering: an
+ * entry rendered while a write committed is never replayed.
+ */
+@Component
+public class CatalogCompressionFilter extends OncePerRequestFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogCompressionFilter.class);
+
+	public static final String ZSTD = "zstd";
+	public static final String GZIP = "gzip";
+
+	static final boolean ZSTD_AVAILABLE = zstdAvailable();
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private CatalogChangeStream changeStream;
+
+	@Value("${dscatalog.compression.enabled:true}")
+	private boolean enabled;
+
+	// respostas menores que isso vao sem compressao
+	@Value("${dscatalog.compression.min-size:512}")
+	private int minSize;
+
+	@Value("${dscatalog.compression.zstd-level:3}")
+	private int zstdLevel;
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		if (!enabled || !HttpMethod.GET.matches(request.getMethod())) {
+			return true;
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		// o stream de mudancas nao pode ser bufferizado; o progresso de jobs muda a cada consulta
+		if (path.equals("/products/changes") || path.startsWith("/products/price-adjustments")) {
+			return true;
+		}
+		return !(path.equals("/products") || path.startsWith("/products/") || path.equals("/categories")
+				|| path.startsWith("/categories/"));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		if (encoding == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		Cache cache = cacheManager.getCache(CacheConfig.RESPONSES);
+		String key = cacheKey(request, encoding);
+		// lida antes do controller: uma escrita confirmada depois disso torna a resposta velha
+		long sequence = changeStream.lastSequence();
+		CompressedResponse cached = cache.get(key, CompressedResponse.class);
+		if (cached != null && cached.getSequence() == sequence) {
+			write(response, cached);
+			return;
+		}
+
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		filterChain.doFilter(request, wrapper);
+
+		byte[] body = wrapper.getContentAsByteArray();
+		if (wrapper.getStatus() != HttpServletResponse.SC_OK || body.length < minSize || response.isCommitted()) {
+			wrapper.copyBodyToResponse();
+			return;
+		}
+
+		CompressedResponse compressed = new CompressedResponse(compress(body, encoding), encoding,
+				wrapper.getContentType(), wrapper.getHeader(HttpHeaders.ETAG), sequence);
+		if (changeStream.lastSequence() == sequence) {
+			cache.put(key, compressed);
+		}
+		write(response, compressed);
+	}
+
+	private void write(HttpServletResponse response, CompressedResponse compressed) throws IOException {
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(compressed.getContentType());
+		if (compressed.getETag() != null) {
+			response.setHeader(HttpHeaders.ETAG, compressed.getETag());
+		}
+		response.setHeader(HttpHeaders.CONTENT_ENCODING, compressed.getEncoding());
+		response.setContentLength(compressed.getBody().length);
+		response.getOutputStream().write(compressed.getBody());
+		response.flushBuffer();
+	}
+
+	private byte[] compress(byte[] body, String encoding) throws IOException {
+		if (ZSTD.equals(encoding)) {
+			return Zstd.compress(body, zstdLevel);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		}
+		return out.toByteArray();
+	}
+
+	private static String cacheKey(HttpServletRequest request, String encoding) {
+		String query = request.getQueryString();
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		return encoding + '|' + (accept == null ? "" : accept) + '|' + request.getRequestURI()
+				+ (query == null ? "" : '?' + query);
+	}
+
+	/**
+	 * Picks zstd or gzip from Accept-Encoding, ignoring codings sent with q=0.
+	 * Returns null when neither is accepted.
+	 */
+	static String negotiate(String acceptEncoding) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return null;
+		}
+		boolean gzip = false;
+		boolean zstd = false;
+		for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+			String[] tokens = part.trim().split(";");
+			String coding = tokens[0].trim();
+			if (tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+				continue;
+			}
+			if (coding.equals(ZSTD)) {
+				zstd = true;
+			} else if (coding.equals(GZIP) || coding.equals("*")) {
+				gzip = true;
+			}
+		}
+		if (zstd && ZSTD_AVAILABLE) {
+			return ZSTD;
+		}
+		return gzip ? GZIP : null;
+	}
+
+	private static boolean zstdAvailable() {
+		try {
+			Zstd.compress(new byte[1]);
+			return true;
+		} catch (LinkageError e) {
+			// biblioteca nativa indisponivel nesta plataforma: fica so gzip
+			logger.warn("zstd not available, falling back to gzip: {}", e.getMessage());
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package pt.amane.dscatalog.components;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import pt.amane.dscatalog.components.seed.CatalogSeedLoader;
+import pt.amane.dscatalog.components.seed.SeedBatch;
+import pt.amane.dscatalog.components.seed.SeedTable;
+
+/**
+ * Fills the database with a reproducible synthetic catalog for load tests.
+ * Runs at startup with dscatalog.generator.enabled=true, or from tests through
+ * generate(); the same seed always produces the same rows, so runs against H2
+ * or a local Postgres are comparable.
+ */
+@Component
+public class CatalogDataGenerator implements CommandLineRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogDataGenerator.class);
+
+	// hash de "123456", a mesma senha usada no import.sql
+	private static final String PASSWORD_HASH = "$2a$10$eACCYoNOHEqXve8aIWT8Nu3PkMXWBaOxJ9aORUYzfMQCbVBIhZ8tG";
+
+	private static final String[] WORDS = { "Smart", "Gamer", "Pro", "Ultra", "Mini", "Max", "Book", "Phone", "TV",
+			"Camera", "Tablet", "Watch", "Speaker", "Monitor", "Keyboard", "Mouse", "Chair", "Desk", "Lamp", "Drone" };
+
+	private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod "
+			+ "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation "
+			+ "ullamco laboris nisi ut aliquip ex ea commodo consequat. ";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CatalogSeedLoader seedLoader;
+
+	@Value("${dscatalog.generator.enabled:false}")
+	private boolean enabled;
+
+	@Value("${dscatalog.generator.products:100000}")
+	private int products;
+
+	@Value("${dscatalog.generator.categories:50}")
+	private int categories;
+
+	@Value("${dscatalog.generator.users:1000}")
+	private int users;
+
+	@Value("${dscatalog.generator.max-categories-per-product:3}")
+	private int maxCategoriesPerProduct;
+
+	@Value("${dscatalog.generator.description-length:400}")
+	private int descriptionLength;
+
+	@Value("${dscatalog.generator.seed:42}")
+	private long seed;
+
+	@Override
+	public void run(String... args) throws Exception {
+		if (enabled) {
+			generate(products, categories, users);
+		}
+	}
+
+	/**
+	 * Adds the given number of synthetic rows after the existing ones, through
+	 * the bulk loader (COPY on Postgres). Same seed, same rows.
+	 */
+	public void generate(int products, int categories, int users) {
+		long start = System.currentTimeMillis();
+		Random random = new Random(seed);
+
+		try (SeedBatch batch = seedLoader.begin()) {
+			List<Long> categoryIds = addCategories(batch, categories);
+			addProducts(batch, random, products, categoryIds);
+			addUsers(batch, users);
+		}
+
+		logger.info("Synthetic catalog generated in {} ms: {} products, {} categories, {} users",
+				System.currentTimeMillis() - start, products, categories, users);
+	}
+
+	private List<Long> addCategories(SeedBatch batch, int categories) {
+		long first = seedLoader.firstFreeId(SeedTable.CATEGORY);
+		List<Long> ids = new ArrayList<>(categories);
+		for (long id = first; id < first + categories; id++) {
+			batch.add(SeedTable.CATEGORY, id, "Category " + id, null, null);
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	private void addProducts(SeedBatch batch, Random random, int products, List<Long> categoryIds) {
+		String description = description();
+		long first = seedLoader.firstFreeId(SeedTable.PRODUCT);
+		for (int i = 1; i <= products; i++) {
+			long id = first + i - 1;
+			String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+			double price = Math.round((10 + random.nextDouble() * 4990) * 100) / 100.0;
+			Instant date = Instant.parse("2020-01-01T00:00:00Z").plusSeconds(random.nextInt(31_536_000));
+			String imgUrl = "https://img.dscatalog.local/" + i + ".jpg";
+			batch.add(SeedTable.PRODUCT, id, name, description, price, imgUrl, date, null, null);
+
+			if (!categoryIds.isEmpty()) {
+				int links = 1 + random.nextInt(Math.max(1, maxCategoriesPerProduct));
+				int offset = random.nextInt(categoryIds.size());
+				for (int j = 0; j < links && j < categoryIds.size(); j++) {
+					batch.add(SeedTable.PRODUCT_CATEGORY, id, categoryIds.get((offset + j) % categoryIds.size()));
+				}
+			}
+		}
+	}
+
+	private void addUsers(SeedBatch batch, int users) {
+		long first = seedLoader.firstFreeId(SeedTable.USER);
+		Long operatorRole = jdbcTemplate.queryForObject("SELECT MIN(id) FROM tb_role WHERE authority = 'ROLE_OPERATOR'",
+				Long.class);
+		for (long id = first; id < first + users; id++) {
+			batch.add(SeedTable.USER, id, "User", "Load " + id, "user" + id + "@loadtest.local", PASSWORD_HASH);
+			if (operatorRole != null) {
+				batch.add(SeedTable.USER_ROLE, id, operatorRole);
+			}
+		}
+	}
+
+	private String description() {
+		StringBuilder sb = new StringBuilder(descriptionLength);
+		while (sb.length() < descriptionLength) {
+			sb.append(LOREM);
+		}
+		return sb.substring(0, descriptionLength);
+	}
+
+}
@@ -0,0 +1,48 @@
+package pt.amane.dscatalog.components;
+
+import java.io.Serializable;
+
+/**
+ * A response body already compressed with one content encoding, plus the
+ * headers needed to replay it and the catalog change sequence it was rendered
+ * at.
+ */
+public class CompressedResponse implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final byte[] body;
+	private final String encoding;
+	private final String contentType;
+	private final String eTag;
+	private final long sequence;
+
+	public CompressedResponse(byte[] body, String encoding, String contentType, String eTag, long sequence) {
+		this.body = body;
+		this.encoding = encoding;
+		this.contentType = contentType;
+		this.eTag = eTag;
+		this.sequence = sequence;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public String getEncoding() {
+		return encoding;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+}
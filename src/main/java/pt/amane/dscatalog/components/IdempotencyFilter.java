@@ -0,0 +1,285 @@
+package pt.amane.dscatalog.components;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import pt.amane.dscatalog.resources.exceptions.StandardError;
+
+/**
+ * Idempotency-Key support for POST /products, /categories and /users. The
+ * first request with a key runs normally and its response (any status below
+ * 500) is kept for dscatalog.idempotency.ttl; retries with the same key get it
+ * replayed without running the controller again. A duplicate arriving while
+ * the first is still running waits for it; running executions are never
+ * evicted, max-entries only bounds the stored responses. Keys are scoped by
+ * user and path, and reusing a key with a different body is rejected with 422.
+ * The store is in memory, per instance.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	public static final String REPLAYED = "Idempotent-Replayed";
+
+	private static final Set<String> PATHS = Set.of("/products", "/categories", "/users");
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${dscatalog.idempotency.enabled:true}")
+	private boolean enabled;
+
+	@Value("${dscatalog.idempotency.ttl:24h}")
+	private Duration ttl;
+
+	@Value("${dscatalog.idempotency.max-entries:10000}")
+	private long maxEntries;
+
+	// quanto uma repeticao espera pela execucao em andamento
+	@Value("${dscatalog.idempotency.wait-timeout:30s}")
+	private Duration waitTimeout;
+
+	@Value("${dscatalog.idempotency.max-key-length:255}")
+	private int maxKeyLength;
+
+	private Cache<String, Execution> executions;
+
+	// max-entries limita so as respostas guardadas: uma execucao em andamento pesa 0 e
+	// nunca sai por tamanho, senao uma repeticao rodaria o controller de novo
+	@PostConstruct
+	void init() {
+		executions = Caffeine.newBuilder().maximumWeight(maxEntries)
+				.weigher((String key, Execution execution) -> execution.result.isDone() ? 1 : 0)
+				.expireAfterWrite(ttl).build();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		if (!enabled || !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null) {
+			return true;
+		}
+		return !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY).trim();
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > maxKeyLength) {
+			writeError(request, response, HttpStatus.BAD_REQUEST,
+					IDEMPOTENCY_KEY + " must have 1 to " + maxKeyLength + " characters!");
+			return;
+		}
+
+		// o corpo e lido uma vez: serve para comparar repeticoes e depois para o controller
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		String fingerprint = DigestUtils.md5DigestAsHex(body);
+		HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+
+		Principal principal = request.getUserPrincipal();
+		String key = (principal == null ? "" : principal.getName()) + '|' + request.getRequestURI() + '|'
+				+ idempotencyKey;
+
+		while (true) {
+			Execution execution = new Execution(fingerprint);
+			Execution existing = executions.asMap().putIfAbsent(key, execution);
+			if (existing == null) {
+				execute(cachedRequest, response, filterChain, key, execution);
+				return;
+			}
+			if (!existing.fingerprint.equals(fingerprint)) {
+				writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+						IDEMPOTENCY_KEY + " already used with a different request body!");
+				return;
+			}
+
+			StoredResponse stored;
+			try {
+				stored = existing.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				writeError(request, response, HttpStatus.CONFLICT,
+						"A request with this " + IDEMPOTENCY_KEY + " is still being processed!");
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				writeError(request, response, HttpStatus.SERVICE_UNAVAILABLE,
+						"Interrupted while waiting for the request with this " + IDEMPOTENCY_KEY + "!");
+				return;
+			} catch (ExecutionException e) {
+				stored = null;
+			}
+			if (stored != null) {
+				replay(response, stored);
+				return;
+			}
+			// a primeira execucao falhou e nada foi guardado: esta tenta de novo
+		}
+	}
+
+	private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, String key,
+			Execution execution) throws ServletException, IOException {
+
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		StoredResponse stored = null;
+		try {
+			filterChain.doFilter(request, wrapper);
+			// erros 5xx nao sao definitivos: a repeticao executa de novo
+			if (wrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+				stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+						wrapper.getHeader(HttpHeaders.LOCATION), wrapper.getHeader(HttpHeaders.ETAG),
+						wrapper.getContentAsByteArray());
+			}
+			wrapper.copyBodyToResponse();
+		} finally {
+			if (stored == null) {
+				executions.asMap().remove(key, execution);
+				execution.result.complete(null);
+			} else {
+				execution.result.complete(stored);
+				// mesmo valor de novo: o Caffeine recalcula o peso, agora 1
+				executions.asMap().replace(key, execution, execution);
+			}
+		}
+	}
+
+	private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+		response.setStatus(stored.status);
+		if (stored.contentType != null) {
+			response.setContentType(stored.contentType);
+		}
+		if (stored.location != null) {
+			response.setHeader(HttpHeaders.LOCATION, stored.location);
+		}
+		if (stored.eTag != null) {
+			response.setHeader(HttpHeaders.ETAG, stored.eTag);
+		}
+		response.setHeader(REPLAYED, "true");
+		response.setContentLength(stored.body.length);
+		response.getOutputStream().write(stored.body);
+		response.flushBuffer();
+	}
+
+	private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+			String message) throws IOException {
+		StandardError error = new StandardError(Instant.now(), status.value(), "Idempotency error", message,
+				request.getRequestURI());
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), error);
+	}
+
+	private static class Execution {
+
+		final String fingerprint;
+		// null quando a execucao falhou
+		final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+		Execution(String fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	private static class StoredResponse {
+
+		final int status;
+		final String contentType;
+		final String location;
+		final String eTag;
+		final byte[] body;
+
+		StoredResponse(int status, String contentType, String location, String eTag, byte[] body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.location = location;
+			this.eTag = eTag;
+			this.body = body;
+		}
+	}
+
+	private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream in = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				// corpo ja em memoria: tudo disponivel de uma vez
+				@Override
+				public void setReadListener(ReadListener listener) {
+					try {
+						if (!isFinished()) {
+							listener.onDataAvailable();
+						}
+						if (isFinished()) {
+							listener.onAllDataRead();
+						}
+					} catch (IOException e) {
+						listener.onError(e);
+					}
+				}
+			};
+		}
+	}
+
+}
@@ -22,7 +22,7 @@ public class JwtTokenEnanhancer implements TokenEnhancer{
 	@Override
 	public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
 		
-		User user = userRepository.findByEmail(authentication.getName());
+		User user = userRepository.findByEmail(User.normalizeEmail(authentication.getName()));
 		
 		Map<String, Object> map = new HashMap<>();
 		
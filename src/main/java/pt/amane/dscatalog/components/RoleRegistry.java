@@ -0,0 +1,178 @@
+package pt.amane.dscatalog.components;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import pt.amane.dscatalog.entities.Role;
+import pt.amane.dscatalog.repositories.RoleRepository;
+
+/**
+ * In-memory copy of tb_role. Each role gets a bit (in id order) and one shared
+ * GrantedAuthority, so User.hasHole() is a mask test and getAuthorities()
+ * returns a shared list instead of building one per call.
+ *
+ * The table is read at startup, again once the runners (seed) are done, and
+ * every dscatalog.roles.refresh-interval ms; a reload that finds the same rows
+ * keeps the current snapshot. Until the first load, and for roles added since
+ * the last one, callers fall back to the role rows themselves.
+ */
+@Component
+public class RoleRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+
+	// mascara de usuario com um perfil fora do registro
+	public static final long UNKNOWN = -1L;
+
+	// estatico porque as entidades (User) nao recebem injecao
+	private static volatile Snapshot current = Snapshot.EMPTY;
+
+	@Autowired
+	private RoleRepository repository;
+
+	// contains() recarrega na thread da requisicao: lock e nao monitor durante a consulta (threads virtuais)
+	private final ReentrantLock reloadLock = new ReentrantLock();
+
+	@EventListener({ ContextRefreshedEvent.class, ApplicationReadyEvent.class })
+	@Scheduled(fixedDelayString = "${dscatalog.roles.refresh-interval:300000}",
+			initialDelayString = "${dscatalog.roles.refresh-interval:300000}")
+	public void reload() {
+		reloadLock.lock();
+		try {
+			List<Role> roles = repository.findAll(Sort.by("id"));
+			if (current.sameRows(roles)) {
+				return;
+			}
+			current = new Snapshot(roles);
+			logger.info("Role registry loaded: {}", current.authorityById.values());
+		} finally {
+			reloadLock.unlock();
+		}
+	}
+
+	/**
+	 * Whether the role exists, reloading once if it is not known yet.
+	 */
+	public boolean contains(Long id) {
+		if (current.indexById.containsKey(id)) {
+			return true;
+		}
+		reload();
+		return current.indexById.containsKey(id);
+	}
+
+	/**
+	 * The bits of the given roles, or UNKNOWN when one of them is not
+	 * registered. Only valid for the snapshot returned by version().
+	 */
+	public static long mask(Collection<Role> roles) {
+		Snapshot snapshot = current;
+		long mask = 0;
+		for (Role role : roles) {
+			Integer index = snapshot.indexById.get(role.getId());
+			if (index == null) {
+				return UNKNOWN;
+			}
+			mask |= 1L << index;
+		}
+		return mask;
+	}
+
+	/**
+	 * The bit of an authority (ROLE_ADMIN...), 0 when it is not registered.
+	 */
+	public static long bit(String authority) {
+		Integer index = current.indexByAuthority.get(authority);
+		return index == null ? 0 : 1L << index;
+	}
+
+	/**
+	 * Shared, unmodifiable authorities of a mask. One list per distinct mask.
+	 */
+	public static List<GrantedAuthority> authorities(long mask) {
+		return current.authorities(mask);
+	}
+
+	/**
+	 * Identity of the loaded snapshot; masks computed under another version
+	 * must be recomputed.
+	 */
+	public static Object version() {
+		return current;
+	}
+
+	private static final class Snapshot {
+
+		static final Snapshot EMPTY = new Snapshot(Collections.emptyList());
+
+		private final Map<Long, Integer> indexById = new HashMap<>();
+		private final Map<String, Integer> indexByAuthority = new HashMap<>();
+		private final Map<Long, String> authorityById = new HashMap<>();
+		private final GrantedAuthority[] authorities;
+		private final ConcurrentMap<Long, List<GrantedAuthority>> listsByMask = new ConcurrentHashMap<>();
+
+		Snapshot(List<Role> roles) {
+			// um bit por perfil; passando de 63 os demais ficam fora e caem no caminho lento
+			int size = Math.min(roles.size(), Long.SIZE - 1);
+			if (roles.size() > size) {
+				logger.warn("Role registry holds the first {} of {} roles", size, roles.size());
+			}
+			authorities = new GrantedAuthority[size];
+			for (int i = 0; i < size; i++) {
+				Role role = roles.get(i);
+				indexById.put(role.getId(), i);
+				indexByAuthority.put(role.getAuthority(), i);
+				authorityById.put(role.getId(), role.getAuthority());
+				authorities[i] = new SimpleGrantedAuthority(role.getAuthority());
+			}
+		}
+
+		boolean sameRows(List<Role> roles) {
+			if (roles.size() != authorityById.size()) {
+				return false;
+			}
+			for (Role role : roles) {
+				if (!role.getAuthority().equals(authorityById.get(role.getId()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		List<GrantedAuthority> authorities(long mask) {
+			// mascaras com ate 7 perfis cabem no cache de Long: sem alocacao na consulta
+			List<GrantedAuthority> list = listsByMask.get(mask);
+			if (list == null) {
+				List<GrantedAuthority> built = new ArrayList<>(Long.bitCount(mask));
+				for (int i = 0; i < authorities.length; i++) {
+					if ((mask & (1L << i)) != 0) {
+						built.add(authorities[i]);
+					}
+				}
+				list = listsByMask.computeIfAbsent(mask, m -> Collections.unmodifiableList(built));
+			}
+			return list;
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package pt.amane.dscatalog.components;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Request coalescing: concurrent calls with the same key share one in-flight
+ * load. The first caller (leader) runs the loader on its own thread; the others
+ * wait for its result, or get its exception, for at most {@code waitTimeout};
+ * after that they run the loader themselves. Nothing is kept once the load ends,
+ * but a waiter's result can be as old as the in-flight load it joined.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final Counter coalesced;
+	private final Duration waitTimeout;
+
+	public SingleFlight(String name, MeterRegistry registry, Duration waitTimeout) {
+		this.waitTimeout = waitTimeout;
+		this.coalesced = Counter.builder("dscatalog.singleflight.coalesced")
+				.description("Requests served by an in-flight load started by another request").tag("name", name)
+				.register(registry);
+	}
+
+	public V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			coalesced.increment();
+			return await(existing, loader);
+		}
+		try {
+			V value = loader.get();
+			future.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	public double coalescedCount() {
+		return coalesced.count();
+	}
+
+	private V await(CompletableFuture<V> future, Supplier<V> loader) {
+		try {
+			return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// o lider esta demorando: carrega por conta propria em vez de prender a thread
+			return loader.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for an in-flight load", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CompletionException(cause);
+		}
+	}
+
+}
@@ -0,0 +1,264 @@
+package pt.amane.dscatalog.components.seed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.entities.User;
+import pt.amane.dscatalog.services.MissingIdCache;
+
+/**
+ * Bulk loader for seed data. Rows go in JDBC batches, or through COPY when the
+ * database is Postgres; ids come from the seed, and the id sequences are moved
+ * past them at the end.
+ *
+ * Seed files are NDJSON, one row per line, parents before the rows linking to
+ * them:
+ * {"type":"category","id":1,"name":"Livros"}
+ * {"type":"product","id":1,"name":"Smart TV","price":2190.0,"date":"2020-07-14T10:00:00Z"}
+ * {"type":"product_category","productId":1,"categoryId":1}
+ *
+ * dscatalog.seed.location loads a file at startup (staging); tests can call
+ * load() or begin() directly.
+ */
+@Component
+public class CatalogSeedLoader implements CommandLineRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogSeedLoader.class);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ResourceLoader resourceLoader;
+
+	@Autowired
+	private MissingIdCache missingIds;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Value("${dscatalog.seed.location:}")
+	private String location;
+
+	@Value("${dscatalog.seed.batch-size:5000}")
+	private int batchSize;
+
+	// COPY so no Postgres; desligado volta para batches JDBC
+	@Value("${dscatalog.seed.copy:true}")
+	private boolean copy;
+
+	private Boolean postgres;
+
+	@Override
+	public void run(String... args) throws Exception {
+		if (StringUtils.hasText(location)) {
+			load(resourceLoader.getResource(location));
+		}
+	}
+
+	/**
+	 * Starts a batch of rows; close it to write the remaining rows.
+	 */
+	public SeedBatch begin() {
+		return new SeedBatch(this, batchSize);
+	}
+
+	/**
+	 * Loads an NDJSON seed file. Returns the number of rows inserted.
+	 */
+	public long load(Resource resource) throws IOException {
+		long start = System.currentTimeMillis();
+		long total;
+		try (SeedBatch batch = begin();
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+				try {
+					JsonNode node = objectMapper.readTree(line);
+					SeedTable table = SeedTable.fromType(node.path("type").asText());
+					batch.add(table, values(table, node));
+				} catch (IOException | RuntimeException e) {
+					throw new IllegalArgumentException(resource.getDescription() + ", line " + lineNumber + ": "
+							+ e.getMessage(), e);
+				}
+			}
+			batch.flush();
+			total = batch.total();
+		}
+		logger.info("Seeded {} rows from {} in {} ms", total, resource.getDescription(),
+				System.currentTimeMillis() - start);
+		return total;
+	}
+
+	void write(SeedTable table, List<Object[]> rows) {
+		if (copy && isPostgres()) {
+			String csv = toCsv(rows);
+			jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+				try {
+					return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(table.copySql(),
+							new StringReader(csv));
+				} catch (IOException e) {
+					throw new SQLException("COPY into " + table.getTable() + " failed", e);
+				}
+			});
+		} else {
+			jdbcTemplate.batchUpdate(table.insertSql(), rows);
+		}
+	}
+
+	/**
+	 * First id free for new rows of the table: after the existing rows and
+	 * after every block the sequence has already handed out (pooled-lo keeps
+	 * them in memory), so seeded ids never meet ids the application generates.
+	 */
+	public long firstFreeId(SeedTable table) {
+		Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.getTable(), Long.class);
+		return Math.max(max == null ? 1 : max + 1, nextSequenceValue(table));
+	}
+
+	// so avanca: voltar a sequencia repetiria blocos ja entregues ao Hibernate
+	void resetSequences(Collection<SeedTable> tables) {
+		for (SeedTable table : tables) {
+			if (!table.hasId()) {
+				continue;
+			}
+			Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.getTable(), Long.class);
+			if (max != null && nextSequenceValue(table) <= max) {
+				if (isPostgres()) {
+					jdbcTemplate.queryForObject("SELECT setval('" + table.getSequence() + "', " + (max + 1) + ", false)",
+							Long.class);
+				} else {
+					jdbcTemplate.execute("ALTER SEQUENCE " + table.getSequence() + " RESTART WITH " + (max + 1));
+				}
+			}
+		}
+	}
+
+	// linhas do seed nao publicam eventos: nada do que foi guardado antes da carga vale mais
+	// (404, DTOs e respostas comprimidas); em transacao, os caches so limpam no commit
+	void invalidateCaches() {
+		missingIds.clear();
+		for (String name : List.of(CacheConfig.PRODUCTS, CacheConfig.CATEGORIES, CacheConfig.RESPONSES)) {
+			cacheManager.getCache(name).clear();
+		}
+	}
+
+	// consome um valor: e so um bloco de ids que fica sem uso
+	private long nextSequenceValue(SeedTable table) {
+		String sql = isPostgres() ? "SELECT nextval('" + table.getSequence() + "')"
+				: "SELECT NEXT VALUE FOR " + table.getSequence();
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private Object[] values(SeedTable table, JsonNode node) {
+		Object[] values = new Object[table.columnCount()];
+		for (int i = 0; i < values.length; i++) {
+			String column = table.column(i);
+			JsonNode value = node.get(camelCase(column));
+			if (value == null || value.isNull()) {
+				continue;
+			}
+			if (SeedTable.TIMESTAMP_COLUMNS.contains(column)) {
+				values[i] = Timestamp.from(Instant.parse(value.asText()));
+			} else if (column.equals("email")) {
+				values[i] = User.normalizeEmail(value.asText());
+			} else if (value.isNumber()) {
+				values[i] = value.numberValue();
+			} else {
+				values[i] = value.asText();
+			}
+		}
+		return values;
+	}
+
+	private boolean isPostgres() {
+		if (postgres == null) {
+			try {
+				String product = JdbcUtils.extractDatabaseMetaData(dataSource,
+						DatabaseMetaData::getDatabaseProductName);
+				postgres = "PostgreSQL".equals(product);
+			} catch (MetaDataAccessException e) {
+				postgres = false;
+			}
+		}
+		return postgres;
+	}
+
+	static String toCsv(List<Object[]> rows) {
+		StringBuilder csv = new StringBuilder(rows.size() * 64);
+		for (Object[] row : rows) {
+			for (int i = 0; i < row.length; i++) {
+				if (i > 0) {
+					csv.append(',');
+				}
+				Object value = row[i];
+				// vazio sem aspas e NULL no formato csv do COPY
+				if (value instanceof String) {
+					csv.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+				} else if (value != null) {
+					csv.append(value);
+				}
+			}
+			csv.append('\n');
+		}
+		return csv.toString();
+	}
+
+	private static String camelCase(String column) {
+		StringBuilder sb = new StringBuilder(column.length());
+		boolean upper = false;
+		for (char c : column.toCharArray()) {
+			if (c == '_') {
+				upper = true;
+			} else {
+				sb.append(upper ? Character.toUpperCase(c) : c);
+				upper = false;
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,79 @@
+package pt.amane.dscatalog.components.seed;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows being seeded, buffered per table. When any buffer fills up all of them
+ * are written in SeedTable order, so a link row is never written before the
+ * rows it references (as long as they were added first). Closing writes the
+ * rest and moves the id sequences past the inserted ids.
+ */
+public class SeedBatch implements AutoCloseable {
+
+	private final CatalogSeedLoader loader;
+	private final int batchSize;
+	private final Map<SeedTable, List<Object[]>> buffers = new EnumMap<>(SeedTable.class);
+	private final Map<SeedTable, Long> counts = new EnumMap<>(SeedTable.class);
+	private final Timestamp now = Timestamp.from(Instant.now());
+
+	SeedBatch(CatalogSeedLoader loader, int batchSize) {
+		this.loader = loader;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Adds one row; values in the order of the table's columns. Instants become
+	 * timestamps; created_at / updated_at left null get the current time.
+	 */
+	public SeedBatch add(SeedTable table, Object... values) {
+		if (values.length != table.columnCount()) {
+			throw new IllegalArgumentException(
+					table.getType() + " expects " + table.columnCount() + " values, got " + values.length);
+		}
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] instanceof Instant) {
+				values[i] = Timestamp.from((Instant) values[i]);
+			} else if (values[i] == null && SeedTable.AUDIT_COLUMNS.contains(table.column(i))) {
+				values[i] = now;
+			}
+		}
+		List<Object[]> buffer = buffers.computeIfAbsent(table, t -> new ArrayList<>(batchSize));
+		buffer.add(values);
+		if (buffer.size() >= batchSize) {
+			flush();
+		}
+		return this;
+	}
+
+	public void flush() {
+		for (Map.Entry<SeedTable, List<Object[]>> entry : buffers.entrySet()) {
+			List<Object[]> rows = entry.getValue();
+			if (!rows.isEmpty()) {
+				loader.write(entry.getKey(), rows);
+				counts.merge(entry.getKey(), (long) rows.size(), Long::sum);
+				rows.clear();
+			}
+		}
+	}
+
+	public long count(SeedTable table) {
+		return counts.getOrDefault(table, 0L);
+	}
+
+	public long total() {
+		return counts.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	@Override
+	public void close() {
+		flush();
+		loader.resetSequences(counts.keySet());
+		loader.invalidateCaches();
+	}
+
+}
@@ -0,0 +1,82 @@
+package pt.amane.dscatalog.components.seed;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Tables a seed file can fill, in foreign-key order. The "type" of an NDJSON
+ * line picks the table; its fields are the columns in camelCase.
+ */
+public enum SeedTable {
+
+	ROLE("role", "tb_role", "seq_role", "id", "authority"),
+	USER("user", "tb_user", "seq_user", "id", "first_name", "last_name", "email", "password"),
+	USER_ROLE("user_role", "tb_user_role", null, "user_id", "role_id"),
+	CATEGORY("category", "tb_category", "seq_category", "id", "name", "created_at", "updated_at"),
+	PRODUCT("product", "tb_product", "seq_product", "id", "name", "description", "price", "img_url", "date", "created_at",
+			"updated_at"),
+	PRODUCT_CATEGORY("product_category", "tb_product_category", null, "product_id", "category_id");
+
+	static final Set<String> TIMESTAMP_COLUMNS = Set.of("date", "created_at", "updated_at");
+	static final Set<String> AUDIT_COLUMNS = Set.of("created_at", "updated_at");
+
+	private final String type;
+	private final String table;
+	// sequencia dos ids (pooled-lo, ver as entidades); null nas tabelas de ligacao
+	private final String sequence;
+	private final String[] columns;
+
+	SeedTable(String type, String table, String sequence, String... columns) {
+		this.type = type;
+		this.table = table;
+		this.sequence = sequence;
+		this.columns = columns;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public String[] getColumns() {
+		return columns.clone();
+	}
+
+	int columnCount() {
+		return columns.length;
+	}
+
+	String column(int index) {
+		return columns[index];
+	}
+
+	public String getSequence() {
+		return sequence;
+	}
+
+	boolean hasId() {
+		return sequence != null;
+	}
+
+	String insertSql() {
+		return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+				+ String.join(", ", Arrays.stream(columns).map(c -> "?").toArray(String[]::new)) + ")";
+	}
+
+	String copySql() {
+		return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+	}
+
+	public static SeedTable fromType(String type) {
+		for (SeedTable table : values()) {
+			if (table.type.equals(type)) {
+				return table;
+			}
+		}
+		throw new IllegalArgumentException("Unknown seed type: " + type);
+	}
+
+}
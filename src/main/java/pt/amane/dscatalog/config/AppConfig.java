@@ -7,11 +7,19 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
 
+import pt.amane.dscatalog.services.exceptions.ServiceException;
+
 @Configuration
 public class AppConfig {
 	
 	@Value("${jwt.secret}")
 	private String jwtSecret;
+
+	// excecoes dos services sem stack trace (ver ServiceException); true para depurar
+	@Value("${dscatalog.exceptions.stack-traces:false}")
+	public void setExceptionStackTraces(boolean stackTraces) {
+		ServiceException.setStackTraces(stackTraces);
+	}
 	
 	@Bean
 	public BCryptPasswordEncoder passWordEncoder() {
@@ -0,0 +1,11 @@
+package pt.amane.dscatalog.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// @Async usa o applicationTaskExecutor do Spring Boot (ou o de virtual threads, ver VirtualThreadConfig)
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+}
@@ -0,0 +1,55 @@
+package pt.amane.dscatalog.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import pt.amane.dscatalog.components.CompressedResponse;
+
+/**
+ * DTO caches. Caching runs outside the transaction interceptor (a hit opens no
+ * transaction) and evictions made inside a transaction only happen after commit.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+	public static final String PRODUCTS = "products";
+	public static final String CATEGORIES = "categories";
+	public static final String RESPONSES = "responses";
+
+	@Value("${dscatalog.cache.spec:maximumSize=10000,expireAfterWrite=10m}")
+	private String cacheSpec;
+
+	@Value("${dscatalog.cache.responses.max-bytes:67108864}")
+	private long responsesMaxBytes;
+
+	@Value("${dscatalog.cache.responses.ttl:10m}")
+	private Duration responsesTtl;
+
+	@Bean
+	public CacheManager cacheManager() {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCTS, CATEGORIES);
+		cacheManager.setCacheSpecification(cacheSpec);
+		cacheManager.setAllowNullValues(false);
+
+		// respostas comprimidas: limitado pelo tamanho em bytes, nao pelo numero de entradas
+		cacheManager.registerCustomCache(RESPONSES, Caffeine.newBuilder()
+				.maximumWeight(responsesMaxBytes)
+				.weigher((Object key, Object value) -> ((CompressedResponse) value).getBody().length)
+				.expireAfterWrite(responsesTtl)
+				.build());
+
+		return new TransactionAwareCacheManagerProxy(cacheManager);
+	}
+
+}
@@ -0,0 +1,72 @@
+package pt.amane.dscatalog.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pool settings (dscatalog.datasource.pool.*) and diagnostics for the JDBC
+ * pools: slow getConnection logging and the /actuator/pool endpoint.
+ */
+@Configuration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
+public class ConnectionPoolConfig {
+
+	@Bean
+	public ConnectionPoolDiagnostics connectionPoolDiagnostics(ConnectionPoolProperties properties,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		return new ConnectionPoolDiagnostics(() -> {
+			MeterRegistry registry = meterRegistry.getIfAvailable();
+			return registry == null ? null : new MicrometerMetricsTrackerFactory(registry);
+		}, properties.getSlowAcquireThreshold(), properties.getSlowAcquireLogInterval());
+	}
+
+	@Bean
+	public HikariPoolCustomizer hikariPoolCustomizer(ConnectionPoolProperties properties,
+			ConnectionPoolDiagnostics diagnostics, Environment environment) {
+		// nomes relaxados: spring.datasource.hikari.maximumPoolSize, SPRING_DATASOURCE_HIKARI_MAXIMUMPOOLSIZE...
+		Binder binder = Binder.get(environment);
+		List<String> hikariSettings = new ArrayList<>();
+		for (String name : ConnectionPoolProperties.POOL_SETTINGS) {
+			if (binder.bind("spring.datasource.hikari." + name, String.class).isBound()) {
+				hikariSettings.add(name);
+			}
+		}
+		return new HikariPoolCustomizer(properties, diagnostics, hikariSettings);
+	}
+
+	@Bean
+	public ConnectionPoolEndpoint connectionPoolEndpoint(ConnectionPoolDiagnostics diagnostics) {
+		return new ConnectionPoolEndpoint(diagnostics);
+	}
+
+	// estatico e com ObjectProvider: o post processor nasce antes dos outros beans
+	@Bean
+	public static BeanPostProcessor hikariPoolPostProcessor(ObjectProvider<HikariPoolCustomizer> customizer) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+				if (bean instanceof HikariDataSource) {
+					customizer.getObject().customize((HikariDataSource) bean);
+				}
+				return bean;
+			}
+
+		};
+	}
+
+}
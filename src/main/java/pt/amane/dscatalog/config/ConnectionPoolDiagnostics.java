@@ -0,0 +1,205 @@
+package pt.amane.dscatalog.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Hikari metrics tracker that follows who holds connections. Every pool
+ * customized by HikariPoolCustomizer reports here; the calls are passed on to
+ * the Micrometer tracker when there is one.
+ *
+ * A getConnection() slower than the threshold (or a timeout) logs the pool
+ * counters and the current stack of each thread holding a connection, at most
+ * once per log interval per pool. Holders are tracked by thread: a connection
+ * closed by another thread than the one that borrowed it is not seen.
+ */
+public class ConnectionPoolDiagnostics implements MetricsTrackerFactory {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolDiagnostics.class);
+
+	private final Supplier<MetricsTrackerFactory> delegate;
+	private final long slowAcquireNanos;
+	private final long logIntervalNanos;
+	private final ConcurrentMap<String, PoolTracker> pools = new ConcurrentHashMap<>();
+
+	// delegate resolvido so quando um pool inicia, ja com o contexto pronto
+	public ConnectionPoolDiagnostics(Supplier<MetricsTrackerFactory> delegate, Duration slowAcquireThreshold,
+			Duration logInterval) {
+		this.delegate = delegate;
+		this.slowAcquireNanos = slowAcquireThreshold.toNanos();
+		this.logIntervalNanos = logInterval.toNanos();
+	}
+
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		MetricsTrackerFactory factory = delegate.get();
+		IMetricsTracker next = factory == null ? null : factory.create(poolName, poolStats);
+		PoolTracker tracker = new PoolTracker(poolName, poolStats, next);
+		pools.put(poolName, tracker);
+		return tracker;
+	}
+
+	/**
+	 * Counters and holders of every started pool, by pool name.
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (PoolTracker tracker : pools.values()) {
+			result.put(tracker.poolName, tracker.snapshot());
+		}
+		return result;
+	}
+
+	private static final class Holder {
+		int count;
+		final long since;
+
+		Holder(long since) {
+			this.since = since;
+		}
+	}
+
+	final class PoolTracker implements IMetricsTracker {
+
+		private final String poolName;
+		private final PoolStats stats;
+		private final IMetricsTracker next;
+		private final ConcurrentMap<Thread, Holder> holders = new ConcurrentHashMap<>();
+		private final AtomicLong slowAcquisitions = new AtomicLong();
+		private final AtomicLong timeouts = new AtomicLong();
+		private final AtomicLong maxAcquireNanos = new AtomicLong();
+		private final AtomicLong lastLog = new AtomicLong(System.nanoTime() - logIntervalNanos);
+
+		PoolTracker(String poolName, PoolStats stats, IMetricsTracker next) {
+			this.poolName = poolName;
+			this.stats = stats;
+			this.next = next;
+		}
+
+		@Override
+		public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+			if (next != null) {
+				next.recordConnectionCreatedMillis(connectionCreatedMillis);
+			}
+		}
+
+		// chamado na thread que pegou a conexao, logo depois do getConnection
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			if (next != null) {
+				next.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+			}
+			long now = System.nanoTime();
+			holders.compute(Thread.currentThread(), (thread, holder) -> {
+				Holder h = holder == null ? new Holder(now) : holder;
+				h.count++;
+				return h;
+			});
+			maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+			if (slowAcquireNanos > 0 && elapsedAcquiredNanos >= slowAcquireNanos) {
+				slowAcquisitions.incrementAndGet();
+				log("Slow getConnection: waited " + TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos) + " ms");
+			}
+		}
+
+		// chamado no close da conexao, normalmente na mesma thread que pegou
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			if (next != null) {
+				next.recordConnectionUsageMillis(elapsedBorrowedMillis);
+			}
+			holders.computeIfPresent(Thread.currentThread(), (thread, holder) -> --holder.count > 0 ? holder : null);
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			if (next != null) {
+				next.recordConnectionTimeout();
+			}
+			timeouts.incrementAndGet();
+			log("getConnection timed out");
+		}
+
+		@Override
+		public void close() {
+			pools.remove(poolName, this);
+			if (next != null) {
+				next.close();
+			}
+		}
+
+		private void log(String reason) {
+			long now = System.nanoTime();
+			long last = lastLog.get();
+			if (now - last < logIntervalNanos || !lastLog.compareAndSet(last, now)) {
+				return;
+			}
+			StringBuilder sb = new StringBuilder();
+			sb.append(reason).append(" from pool ").append(poolName).append(" (active ")
+					.append(stats.getActiveConnections()).append(", idle ").append(stats.getIdleConnections())
+					.append(", waiting ").append(stats.getPendingThreads()).append(", max ")
+					.append(stats.getMaxConnections()).append("). Holders:");
+			for (Map.Entry<Thread, Holder> entry : sortedHolders()) {
+				Thread thread = entry.getKey();
+				sb.append("\n\"").append(thread.getName()).append("\" holding ").append(entry.getValue().count)
+						.append(" for ").append(TimeUnit.NANOSECONDS.toMillis(now - entry.getValue().since))
+						.append(" ms, ").append(thread.getState());
+				for (StackTraceElement element : thread.getStackTrace()) {
+					sb.append("\n\tat ").append(element);
+				}
+			}
+			logger.warn(sb.toString());
+		}
+
+		// mais antigos primeiro; threads mortas sairam sem devolver pelo mesmo caminho
+		private List<Map.Entry<Thread, Holder>> sortedHolders() {
+			holders.keySet().removeIf(thread -> !thread.isAlive());
+			List<Map.Entry<Thread, Holder>> entries = new ArrayList<>(holders.entrySet());
+			entries.sort(Comparator.comparingLong(entry -> entry.getValue().since));
+			return entries;
+		}
+
+		Map<String, Object> snapshot() {
+			long now = System.nanoTime();
+			Map<String, Object> pool = new LinkedHashMap<>();
+			pool.put("active", stats.getActiveConnections());
+			pool.put("idle", stats.getIdleConnections());
+			pool.put("total", stats.getTotalConnections());
+			pool.put("waiting", stats.getPendingThreads());
+			pool.put("max", stats.getMaxConnections());
+			pool.put("min", stats.getMinConnections());
+			pool.put("slowAcquisitions", slowAcquisitions.get());
+			pool.put("timeouts", timeouts.get());
+			pool.put("maxAcquireMillis", TimeUnit.NANOSECONDS.toMillis(maxAcquireNanos.get()));
+			List<Map<String, Object>> list = new ArrayList<>();
+			for (Map.Entry<Thread, Holder> entry : sortedHolders()) {
+				Map<String, Object> holder = new LinkedHashMap<>();
+				holder.put("thread", entry.getKey().getName());
+				holder.put("connections", entry.getValue().count);
+				holder.put("heldMillis", TimeUnit.NANOSECONDS.toMillis(now - entry.getValue().since));
+				holder.put("state", entry.getKey().getState().name());
+				list.add(holder);
+			}
+			pool.put("holders", list);
+			return pool;
+		}
+
+	}
+
+}
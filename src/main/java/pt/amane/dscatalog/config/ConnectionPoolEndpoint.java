@@ -0,0 +1,26 @@
+package pt.amane.dscatalog.config;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * GET /actuator/pool: active, idle and total connections, threads waiting for
+ * one and the threads holding connections, per pool.
+ */
+@Endpoint(id = "pool")
+public class ConnectionPoolEndpoint {
+
+	private final ConnectionPoolDiagnostics diagnostics;
+
+	public ConnectionPoolEndpoint(ConnectionPoolDiagnostics diagnostics) {
+		this.diagnostics = diagnostics;
+	}
+
+	@ReadOperation
+	public Map<String, Object> pools() {
+		return diagnostics.snapshot();
+	}
+
+}
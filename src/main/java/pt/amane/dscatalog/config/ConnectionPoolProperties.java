@@ -0,0 +1,157 @@
+package pt.amane.dscatalog.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * HikariCP settings applied to every JDBC pool of the application (primary and
+ * replicas). Pool settings left empty keep the pool's own value
+ * (spring.datasource.hikari.* or the Hikari default); setting one here and in
+ * spring.datasource.hikari.* fails at startup. The statement cache and batch
+ * rewrite are pgjdbc properties and only go to Postgres urls.
+ */
+@ConfigurationProperties(prefix = "dscatalog.datasource.pool")
+public class ConnectionPoolProperties {
+
+	// mesmos nomes de spring.datasource.hikari.*
+	static final List<String> POOL_SETTINGS = List.of("maximum-pool-size", "minimum-idle", "connection-timeout",
+			"idle-timeout", "max-lifetime", "leak-detection-threshold");
+
+	// vazios = valor do pool (Hikari: 10 conexoes, minimo igual ao maximo, 30s, 10m, 30m)
+	private Integer maximumPoolSize;
+	private Integer minimumIdle;
+
+	private Duration connectionTimeout;
+	private Duration idleTimeout;
+	private Duration maxLifetime;
+
+	// conexao emprestada por mais tempo que isso loga a pilha de quem pegou; 0 desliga
+	private Duration leakDetectionThreshold;
+
+	// getConnection mais lento que isso loga o estado do pool e as pilhas de quem segura conexoes; 0 desliga
+	private Duration slowAcquireThreshold = Duration.ofMillis(200);
+	private Duration slowAcquireLogInterval = Duration.ofSeconds(10);
+
+	// pgjdbc: execucoes ate virar prepared statement no servidor e tamanho do cache por conexao
+	private int prepareThreshold = 5;
+	private int statementCacheQueries = 256;
+	private int statementCacheSizeMib = 5;
+
+	// pgjdbc: junta os INSERTs de um batch em um INSERT de varias linhas
+	private boolean reWriteBatchedInserts = true;
+
+	public Integer getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	public void setMaximumPoolSize(Integer maximumPoolSize) {
+		this.maximumPoolSize = maximumPoolSize;
+	}
+
+	public Integer getMinimumIdle() {
+		return minimumIdle;
+	}
+
+	public void setMinimumIdle(Integer minimumIdle) {
+		this.minimumIdle = minimumIdle;
+	}
+
+	public Duration getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	public void setConnectionTimeout(Duration connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	public Duration getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public Duration getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	public void setMaxLifetime(Duration maxLifetime) {
+		this.maxLifetime = maxLifetime;
+	}
+
+	public Duration getLeakDetectionThreshold() {
+		return leakDetectionThreshold;
+	}
+
+	public void setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+		this.leakDetectionThreshold = leakDetectionThreshold;
+	}
+
+	public Duration getSlowAcquireThreshold() {
+		return slowAcquireThreshold;
+	}
+
+	public void setSlowAcquireThreshold(Duration slowAcquireThreshold) {
+		this.slowAcquireThreshold = slowAcquireThreshold;
+	}
+
+	public Duration getSlowAcquireLogInterval() {
+		return slowAcquireLogInterval;
+	}
+
+	public void setSlowAcquireLogInterval(Duration slowAcquireLogInterval) {
+		this.slowAcquireLogInterval = slowAcquireLogInterval;
+	}
+
+	public int getPrepareThreshold() {
+		return prepareThreshold;
+	}
+
+	public void setPrepareThreshold(int prepareThreshold) {
+		this.prepareThreshold = prepareThreshold;
+	}
+
+	public int getStatementCacheQueries() {
+		return statementCacheQueries;
+	}
+
+	public void setStatementCacheQueries(int statementCacheQueries) {
+		this.statementCacheQueries = statementCacheQueries;
+	}
+
+	public int getStatementCacheSizeMib() {
+		return statementCacheSizeMib;
+	}
+
+	public void setStatementCacheSizeMib(int statementCacheSizeMib) {
+		this.statementCacheSizeMib = statementCacheSizeMib;
+	}
+
+	/**
+	 * Names (as in POOL_SETTINGS) of the pool settings set here.
+	 */
+	List<String> poolSettingsSet() {
+		List<String> set = new ArrayList<>();
+		Object[] values = { maximumPoolSize, minimumIdle, connectionTimeout, idleTimeout, maxLifetime,
+				leakDetectionThreshold };
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				set.add(POOL_SETTINGS.get(i));
+			}
+		}
+		return set;
+	}
+
+	public boolean isReWriteBatchedInserts() {
+		return reWriteBatchedInserts;
+	}
+
+	public void setReWriteBatchedInserts(boolean reWriteBatchedInserts) {
+		this.reWriteBatchedInserts = reWriteBatchedInserts;
+	}
+
+}
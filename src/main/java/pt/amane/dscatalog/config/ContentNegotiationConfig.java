@@ -0,0 +1,76 @@
+package pt.amane.dscatalog.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import pt.amane.dscatalog.converters.CatalogProtobufHttpMessageConverter;
+
+/**
+ * Binary formats chosen by the Accept header: application/cbor,
+ * application/x-jackson-smile and application/x-protobuf (catalog DTOs only).
+ * They go after the JSON converter, so a wildcard Accept still gets JSON. A
+ * request that only accepts Protobuf gets JSON for the types Protobuf does not
+ * cover (errors, batches, ...) instead of 406.
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+	// prototype: cada chamada devolve um builder novo ja configurado pelo Spring Boot
+	@Autowired
+	private ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+	@Override
+	public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+		configurer.strategies(List.of(new ProtobufJsonFallbackStrategy()));
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		// os conversores padrao de CBOR/Smile nao usam a configuracao Jackson do Spring Boot
+		converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+				|| converter instanceof MappingJackson2SmileHttpMessageConverter);
+
+		converters.add(new MappingJackson2CborHttpMessageConverter(
+				objectMapperBuilder.getObject().factory(new CBORFactory()).build()));
+		converters.add(new MappingJackson2SmileHttpMessageConverter(
+				objectMapperBuilder.getObject().factory(new SmileFactory()).build()));
+		converters.add(new CatalogProtobufHttpMessageConverter());
+	}
+
+	// Accept: application/x-protobuf vira "application/x-protobuf, application/json;q=0.001"
+	static final class ProtobufJsonFallbackStrategy extends HeaderContentNegotiationStrategy {
+
+		private static final MediaType JSON_FALLBACK = new MediaType("application", "json", 0.001);
+
+		@Override
+		public List<MediaType> resolveMediaTypes(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+			List<MediaType> mediaTypes = super.resolveMediaTypes(request);
+			if (mediaTypes.stream().noneMatch(CatalogProtobufHttpMessageConverter.PROTOBUF::includes)
+					|| mediaTypes.stream().anyMatch(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON))) {
+				return mediaTypes;
+			}
+			List<MediaType> withFallback = new ArrayList<>(mediaTypes);
+			withFallback.add(JSON_FALLBACK);
+			return withFallback;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package pt.amane.dscatalog.config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.Filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * "fast-start" profile: beans are created on first use
+ * (spring.main.lazy-initialization), except servlet filters - so the first
+ * request does not pay for building the security chain - beans with @Scheduled
+ * methods, which would otherwise never be scheduled, and the names listed in
+ * dscatalog.fast-start.eager-beans.
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+	@Bean
+	public static LazyInitializationExcludeFilter eagerBeans(
+			@Value("${dscatalog.fast-start.eager-beans:}") String[] eagerBeans) {
+		List<String> names = Arrays.asList(eagerBeans);
+		return (beanName, beanDefinition, beanType) -> names.contains(beanName)
+				|| Filter.class.isAssignableFrom(beanType) || hasScheduledMethods(beanType);
+	}
+
+	// usado no treino do arquivo AppCDS (perfil Maven fast-start): sobe, carrega as classes e sai
+	@Bean
+	@ConditionalOnProperty(name = "dscatalog.fast-start.exit-after-startup", havingValue = "true")
+	public ApplicationListener<ApplicationReadyEvent> exitAfterStartup() {
+		return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+	}
+
+	private static boolean hasScheduledMethods(Class<?> beanType) {
+		boolean[] found = new boolean[1];
+		ReflectionUtils.doWithMethods(beanType, method -> found[0] = true,
+				method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+		return found[0];
+	}
+
+}
@@ -0,0 +1,83 @@
+package pt.amane.dscatalog.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Applies ConnectionPoolProperties to a Hikari pool before it starts. Used for
+ * the auto-configured DataSource (through a BeanPostProcessor) and for the
+ * pools built by ReplicaRoutingConfig. Only the settings given in
+ * dscatalog.datasource.pool.* are applied; the same setting also given in
+ * spring.datasource.hikari.* is rejected instead of silently replaced.
+ */
+public class HikariPoolCustomizer {
+
+	private final ConnectionPoolProperties properties;
+	private final ConnectionPoolDiagnostics diagnostics;
+
+	public HikariPoolCustomizer(ConnectionPoolProperties properties, ConnectionPoolDiagnostics diagnostics) {
+		this(properties, diagnostics, Collections.emptyList());
+	}
+
+	/**
+	 * hikariSettings: names (as in ConnectionPoolProperties.POOL_SETTINGS) set
+	 * in spring.datasource.hikari.*.
+	 */
+	public HikariPoolCustomizer(ConnectionPoolProperties properties, ConnectionPoolDiagnostics diagnostics,
+			Collection<String> hikariSettings) {
+		List<String> conflicts = new ArrayList<>(properties.poolSettingsSet());
+		conflicts.retainAll(hikariSettings);
+		if (!conflicts.isEmpty()) {
+			throw new IllegalStateException("Pool settings " + conflicts
+					+ " are set in both spring.datasource.hikari.* and dscatalog.datasource.pool.*; keep only one");
+		}
+		this.properties = properties;
+		this.diagnostics = diagnostics;
+	}
+
+	public void customize(HikariDataSource dataSource) {
+		if (properties.getMaximumPoolSize() != null) {
+			dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+		}
+		if (properties.getMinimumIdle() != null) {
+			dataSource.setMinimumIdle(properties.getMinimumIdle());
+		}
+		if (properties.getConnectionTimeout() != null) {
+			dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+		}
+		if (properties.getIdleTimeout() != null) {
+			dataSource.setIdleTimeout(properties.getIdleTimeout().toMillis());
+		}
+		if (properties.getMaxLifetime() != null) {
+			dataSource.setMaxLifetime(properties.getMaxLifetime().toMillis());
+		}
+		if (properties.getLeakDetectionThreshold() != null) {
+			dataSource.setLeakDetectionThreshold(properties.getLeakDetectionThreshold().toMillis());
+		}
+
+		String url = dataSource.getJdbcUrl();
+		if (url != null && url.startsWith("jdbc:postgresql:")) {
+			addIfAbsent(dataSource, "prepareThreshold", properties.getPrepareThreshold());
+			addIfAbsent(dataSource, "preparedStatementCacheQueries", properties.getStatementCacheQueries());
+			addIfAbsent(dataSource, "preparedStatementCacheSizeMiB", properties.getStatementCacheSizeMib());
+			addIfAbsent(dataSource, "reWriteBatchedInserts", properties.isReWriteBatchedInserts());
+		}
+
+		// o Spring Boot so registra o tracker do Micrometer quando nao ha outro; o nosso repassa para ele
+		if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+			dataSource.setMetricsTrackerFactory(diagnostics);
+		}
+	}
+
+	// spring.datasource.hikari.data-source-properties.* prevalece
+	private static void addIfAbsent(HikariDataSource dataSource, String name, Object value) {
+		if (!dataSource.getDataSourceProperties().containsKey(name)) {
+			dataSource.addDataSourceProperty(name, value);
+		}
+	}
+
+}
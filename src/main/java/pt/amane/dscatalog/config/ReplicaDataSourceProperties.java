@@ -0,0 +1,71 @@
+package pt.amane.dscatalog.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "dscatalog.datasource.replicas")
+public class ReplicaDataSourceProperties {
+
+	private boolean enabled;
+
+	// JDBC urls das replicas, separadas por virgula
+	private List<String> urls = new ArrayList<>();
+
+	private String username;
+	private String password;
+
+	private Duration healthCheckInterval = Duration.ofSeconds(10);
+	private Duration healthCheckTimeout = Duration.ofSeconds(2);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public List<String> getUrls() {
+		return urls;
+	}
+
+	public void setUrls(List<String> urls) {
+		this.urls = urls;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	public Duration getHealthCheckInterval() {
+		return healthCheckInterval;
+	}
+
+	public void setHealthCheckInterval(Duration healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
+	public Duration getHealthCheckTimeout() {
+		return healthCheckTimeout;
+	}
+
+	public void setHealthCheckTimeout(Duration healthCheckTimeout) {
+		this.healthCheckTimeout = healthCheckTimeout;
+	}
+
+}
@@ -0,0 +1,67 @@
+package pt.amane.dscatalog.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Read/write split: @Transactional(readOnly = true) goes to the replicas, the
+ * rest to spring.datasource (primary). Only active with
+ * dscatalog.datasource.replicas.enabled=true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dscatalog.datasource.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaRoutingConfig {
+
+	@Bean(destroyMethod = "close")
+	public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties,
+			ReplicaDataSourceProperties replicaProperties, HikariPoolCustomizer poolCustomizer) {
+
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName("primary");
+		poolCustomizer.customize(primary);
+
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (String url : replicaProperties.getUrls()) {
+			if (!StringUtils.hasText(url)) {
+				continue;
+			}
+			String key = "replica-" + replicas.size();
+			HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class).url(url)
+					.username(StringUtils.hasText(replicaProperties.getUsername()) ? replicaProperties.getUsername()
+							: properties.determineUsername())
+					.password(StringUtils.hasText(replicaProperties.getPassword()) ? replicaProperties.getPassword()
+							: properties.determinePassword())
+					.build();
+			replica.setPoolName(key);
+			replica.setReadOnly(true);
+			poolCustomizer.customize(replica);
+			replicas.put(key, replica);
+		}
+
+		return new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getHealthCheckInterval(),
+				replicaProperties.getHealthCheckTimeout());
+	}
+
+	// o proxy adia o getConnection ate o primeiro comando, quando readOnly ja esta definido
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+}
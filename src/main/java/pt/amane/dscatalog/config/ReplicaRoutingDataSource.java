@@ -0,0 +1,161 @@
+package pt.amane.dscatalog.config;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replicas (round-robin) and everything
+ * else to the primary. Replicas that fail the periodic health check, or fail to
+ * hand out a connection, are skipped until they recover; with no healthy
+ * replica reads fall back to the primary.
+ *
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the connection is only
+ * fetched after the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	public static final String PRIMARY = "primary";
+
+	private final DataSource primary;
+	private final Map<String, DataSource> replicas;
+	private final List<String> replicaKeys;
+	private final Set<String> unhealthy = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger next = new AtomicInteger();
+	private final Duration healthCheckInterval;
+	private final int healthCheckTimeoutSeconds;
+
+	private ScheduledExecutorService healthChecker;
+
+	public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration healthCheckInterval,
+			Duration healthCheckTimeout) {
+		this.primary = primary;
+		this.replicas = replicas;
+		this.replicaKeys = new ArrayList<>(replicas.keySet());
+		this.healthCheckInterval = healthCheckInterval;
+		this.healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.getSeconds());
+
+		Map<Object, Object> targets = new HashMap<>(replicas);
+		targets.put(PRIMARY, primary);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		if (!replicaKeys.isEmpty() && !healthCheckInterval.isZero() && !healthCheckInterval.isNegative()) {
+			healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "replica-health-check");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long millis = healthCheckInterval.toMillis();
+			healthChecker.scheduleWithFixedDelay(this::checkHealth, millis, millis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARY;
+		}
+		int size = replicaKeys.size();
+		for (int i = 0; i < size; i++) {
+			String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), size));
+			if (!unhealthy.contains(key)) {
+				return key;
+			}
+		}
+		return PRIMARY;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Object key = determineCurrentLookupKey();
+		if (PRIMARY.equals(key)) {
+			return primary.getConnection();
+		}
+		try {
+			return replicas.get(key).getConnection();
+		} catch (SQLException e) {
+			markUnhealthy((String) key, e);
+			return primary.getConnection();
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getConnection();
+	}
+
+	public void checkHealth() {
+		for (String key : replicaKeys) {
+			try (Connection connection = replicas.get(key).getConnection()) {
+				if (connection.isValid(healthCheckTimeoutSeconds)) {
+					if (unhealthy.remove(key)) {
+						logger.info("Replica {} is healthy again", key);
+					}
+				} else {
+					markUnhealthy(key, null);
+				}
+			} catch (SQLException e) {
+				markUnhealthy(key, e);
+			}
+		}
+	}
+
+	public boolean isHealthy(String key) {
+		return replicas.containsKey(key) && !unhealthy.contains(key);
+	}
+
+	private void markUnhealthy(String key, SQLException e) {
+		if (unhealthy.add(key)) {
+			logger.warn("Replica {} marked unhealthy, reads fall back to {}: {}", key,
+					unhealthy.size() == replicaKeys.size() ? PRIMARY : "other replicas",
+					e == null ? "invalid connection" : e.getMessage());
+		}
+	}
+
+	@Override
+	public void close() {
+		if (healthChecker != null) {
+			healthChecker.shutdownNow();
+		}
+		for (DataSource ds : replicas.values()) {
+			closeQuietly(ds);
+		}
+		closeQuietly(primary);
+	}
+
+	private void closeQuietly(DataSource ds) {
+		if (ds instanceof Closeable) {
+			try {
+				((Closeable) ds).close();
+			} catch (Exception e) {
+				logger.warn("Error closing datasource: {}", e.getMessage());
+			}
+		}
+	}
+
+}
@@ -29,11 +29,16 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter{
 	@Autowired
 	private JwtTokenStore jwtTokenStore;
 	
-	private String[] PUBLIC = {"/oauth/token", "/h2-console/**"};
+	// health fica aberto para as sondas do balanceador; o resto do actuator e ADMIN
+	private String[] PUBLIC = {"/oauth/token", "/h2-console/**", "/actuator/health"};
 	
 	private String[] OPERATOR_OR_ADMIN = {"/products/**","/categories/**"};
 	
-	private String[] ADMIN = {"/users/**"};
+	// /actuator/pool mostra threads e pilhas de quem segura conexoes
+	private String[] ADMIN = {"/users/**", "/actuator/**"};
+
+	// consulta de jobs nao e publica como o resto dos GET do catalogo
+	private String[] OPERATOR_OR_ADMIN_GET = {"/products/price-adjustments/**"};
 	
 	@Override
 	public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
@@ -50,6 +55,7 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter{
 		
 		http.authorizeRequests()
 		.antMatchers(PUBLIC).permitAll()
+		.antMatchers(HttpMethod.GET, OPERATOR_OR_ADMIN_GET).hasAnyRole("OPERATOR","ADMIN")
 		.antMatchers(HttpMethod.GET, OPERATOR_OR_ADMIN).permitAll()
 		.antMatchers(OPERATOR_OR_ADMIN).hasAnyRole("OPERATOR","ADMIN")
 		.antMatchers(ADMIN).hasAnyRole("ADMIN")
@@ -64,7 +70,8 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter{
 	    corsConfig.setAllowedOriginPatterns(Arrays.asList("*"));
 	    corsConfig.setAllowedMethods(Arrays.asList("POST", "GET", "PUT", "DELETE", "PATCH"));
 	    corsConfig.setAllowCredentials(true);
-	    corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+	    corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "If-Match", "Idempotency-Key"));
+	    corsConfig.setExposedHeaders(Arrays.asList("ETag", "Location", "Idempotent-Replayed"));
 	 
 	    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 	    source.registerCorsConfiguration("/**", corsConfig);
@@ -0,0 +1,55 @@
+package pt.amane.dscatalog.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Opt-in (dscatalog.threads.virtual.enabled=true): Tomcat requests and @Async
+ * tasks run on virtual threads instead of the platform thread pools.
+ *
+ * The code is still compiled for Java 11, so the executor is looked up
+ * reflectively and the mode needs a JDK 21+ runtime. Concurrency against the
+ * database stays bounded by the Hikari pool size.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dscatalog.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService virtualThreadExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			logger.info("Serving requests and @Async tasks on virtual threads");
+			return executor;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("dscatalog.threads.virtual.enabled=true needs a JDK 21+ runtime, found "
+					+ System.getProperty("java.version"), e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create the virtual thread executor", e);
+		}
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+	}
+
+	// substitui o ThreadPoolTaskExecutor do Spring Boot usado pelo @Async
+	@Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+	public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+		return new TaskExecutorAdapter(virtualThreadExecutor);
+	}
+
+}
@@ -0,0 +1,156 @@
+package pt.amane.dscatalog.converters;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.google.protobuf.Timestamp;
+
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.proto.Category;
+import pt.amane.dscatalog.proto.CategoryPage;
+import pt.amane.dscatalog.proto.Product;
+import pt.amane.dscatalog.proto.ProductPage;
+
+/**
+ * Maps the catalog DTOs to and from the messages generated from
+ * src/main/proto/catalog.proto. Null fields are left unset and read back as
+ * null; proto3 strings have no presence, so an empty string also reads back as
+ * null.
+ */
+public final class CatalogProtobufCodec {
+
+	private CatalogProtobufCodec() {
+	}
+
+	public static Category toMessage(CategoryDTO dto) {
+		Category.Builder builder = Category.newBuilder();
+		if (dto.getId() != null) {
+			builder.setId(dto.getId());
+		}
+		if (dto.getName() != null) {
+			builder.setName(dto.getName());
+		}
+		if (dto.getVersion() != null) {
+			builder.setVersion(dto.getVersion());
+		}
+		return builder.build();
+	}
+
+	public static Product toMessage(ProductDTO dto) {
+		Product.Builder builder = Product.newBuilder();
+		if (dto.getId() != null) {
+			builder.setId(dto.getId());
+		}
+		if (dto.getName() != null) {
+			builder.setName(dto.getName());
+		}
+		if (dto.getDescription() != null) {
+			builder.setDescription(dto.getDescription());
+		}
+		if (dto.getPrice() != null) {
+			builder.setPrice(dto.getPrice());
+		}
+		if (dto.getImgUrl() != null) {
+			builder.setImgUrl(dto.getImgUrl());
+		}
+		if (dto.getDate() != null) {
+			builder.setDate(Timestamp.newBuilder().setSeconds(dto.getDate().getEpochSecond())
+					.setNanos(dto.getDate().getNano()));
+		}
+		if (dto.getVersion() != null) {
+			builder.setVersion(dto.getVersion());
+		}
+		for (CategoryDTO category : dto.getCategories()) {
+			builder.addCategories(toMessage(category));
+		}
+		return builder.build();
+	}
+
+	public static ProductPage toProductPage(Page<ProductDTO> page) {
+		ProductPage.Builder builder = ProductPage.newBuilder();
+		for (ProductDTO dto : page.getContent()) {
+			builder.addContent(toMessage(dto));
+		}
+		return builder.setNumber(page.getNumber()).setSize(page.getSize()).setTotalElements(page.getTotalElements())
+				.setTotalPages(page.getTotalPages()).build();
+	}
+
+	public static CategoryPage toCategoryPage(Page<CategoryDTO> page) {
+		CategoryPage.Builder builder = CategoryPage.newBuilder();
+		for (CategoryDTO dto : page.getContent()) {
+			builder.addContent(toMessage(dto));
+		}
+		return builder.setNumber(page.getNumber()).setSize(page.getSize()).setTotalElements(page.getTotalElements())
+				.setTotalPages(page.getTotalPages()).build();
+	}
+
+	public static CategoryDTO toDto(Category message) {
+		CategoryDTO dto = new CategoryDTO();
+		if (message.hasId()) {
+			dto.setId(message.getId());
+		}
+		dto.setName(emptyToNull(message.getName()));
+		if (message.hasVersion()) {
+			dto.setVersion(message.getVersion());
+		}
+		return dto;
+	}
+
+	public static ProductDTO toDto(Product message) {
+		ProductDTO dto = new ProductDTO();
+		if (message.hasId()) {
+			dto.setId(message.getId());
+		}
+		dto.setName(emptyToNull(message.getName()));
+		dto.setDescription(emptyToNull(message.getDescription()));
+		if (message.hasPrice()) {
+			dto.setPrice(message.getPrice());
+		}
+		dto.setImgUrl(emptyToNull(message.getImgUrl()));
+		if (message.hasDate()) {
+			dto.setDate(Instant.ofEpochSecond(message.getDate().getSeconds(), message.getDate().getNanos()));
+		}
+		if (message.hasVersion()) {
+			dto.setVersion(message.getVersion());
+		}
+		for (Category category : message.getCategoriesList()) {
+			dto.getCategories().add(toDto(category));
+		}
+		return dto;
+	}
+
+	public static Page<ProductDTO> toPage(ProductPage message) {
+		List<ProductDTO> content = new ArrayList<>();
+		for (Product product : message.getContentList()) {
+			content.add(toDto(product));
+		}
+		return toPage(content, message.getNumber(), message.getSize(), message.getTotalElements());
+	}
+
+	public static Page<CategoryDTO> toPage(CategoryPage message) {
+		List<CategoryDTO> content = new ArrayList<>();
+		for (Category category : message.getContentList()) {
+			content.add(toDto(category));
+		}
+		return toPage(content, message.getNumber(), message.getSize(), message.getTotalElements());
+	}
+
+	// total_pages e derivado de size e total_elements
+	private static <T> Page<T> toPage(List<T> content, int number, int size, long totalElements) {
+		if (size < 1) {
+			return new PageImpl<>(content);
+		}
+		return new PageImpl<>(content, PageRequest.of(number, size), totalElements);
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+
+}
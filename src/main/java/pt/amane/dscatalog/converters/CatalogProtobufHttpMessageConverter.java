@@ -0,0 +1,104 @@
+package pt.amane.dscatalog.converters;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.proto.Category;
+import pt.amane.dscatalog.proto.Product;
+
+/**
+ * application/x-protobuf for ProductDTO, CategoryDTO and pages of them. Other
+ * types (users, errors, ...) are left to the JSON converter.
+ */
+public class CatalogProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+	public CatalogProtobufHttpMessageConverter() {
+		super(PROTOBUF);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return clazz == ProductDTO.class || clazz == CategoryDTO.class;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return supports(ResolvableType.forType(type).toClass()) && canRead(mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		if (!canWrite(mediaType)) {
+			return false;
+		}
+		if (Page.class.isAssignableFrom(clazz)) {
+			// so paginas de DTOs do catalogo
+			return type != null && supports(pageElement(type));
+		}
+		return supports(clazz);
+	}
+
+	// o Spring 5.3 pergunta os tipos de midia pela classe do valor (PageImpl) depois do canWrite generico
+	@Override
+	public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+		return Page.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : super.getSupportedMediaTypes(clazz);
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		return read(clazz, null, inputMessage);
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		try {
+			if (ResolvableType.forType(type).toClass() == CategoryDTO.class) {
+				return CatalogProtobufCodec.toDto(Category.parseFrom(inputMessage.getBody()));
+			}
+			return CatalogProtobufCodec.toDto(Product.parseFrom(inputMessage.getBody()));
+		} catch (InvalidProtocolBufferException e) {
+			throw new HttpMessageNotReadableException("Invalid protobuf message: " + e.getMessage(), e, inputMessage);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		MessageLite message;
+		if (value instanceof ProductDTO) {
+			message = CatalogProtobufCodec.toMessage((ProductDTO) value);
+		} else if (value instanceof CategoryDTO) {
+			message = CatalogProtobufCodec.toMessage((CategoryDTO) value);
+		} else if (pageElement(type) == CategoryDTO.class) {
+			message = CatalogProtobufCodec.toCategoryPage((Page<CategoryDTO>) value);
+		} else {
+			message = CatalogProtobufCodec.toProductPage((Page<ProductDTO>) value);
+		}
+		message.writeTo(outputMessage.getBody());
+	}
+
+	private static Class<?> pageElement(Type type) {
+		return ResolvableType.forType(type).as(Page.class).getGeneric(0).toClass();
+	}
+
+}
@@ -0,0 +1,77 @@
+package pt.amane.dscatalog.dtos;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+public class CatalogChangeDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// o cliente perdeu eventos demais: recarregar tudo e retomar a partir de sequence
+	public static final String RESET = "RESET";
+
+	// linha periodica do NDJSON para manter a conexao; sequence e a ultima ja enviada
+	public static final String HEARTBEAT = "HEARTBEAT";
+
+	private long sequence;
+	private String type;
+	private String entity;
+	private Long id;
+	private Long version;
+	private Instant timestamp;
+
+	public CatalogChangeDTO() {
+	}
+
+	public CatalogChangeDTO(long sequence, CatalogChangeEvent event) {
+		this.sequence = sequence;
+		this.type = event.getType().name();
+		this.entity = event.getEntity();
+		this.id = event.getId();
+		this.version = event.getVersion();
+		this.timestamp = event.getTimestamp();
+	}
+
+	public static CatalogChangeDTO reset(long sequence) {
+		CatalogChangeDTO dto = new CatalogChangeDTO();
+		dto.sequence = sequence;
+		dto.type = RESET;
+		dto.timestamp = Instant.now();
+		return dto;
+	}
+
+	public static CatalogChangeDTO heartbeat(long sequence) {
+		CatalogChangeDTO dto = new CatalogChangeDTO();
+		dto.sequence = sequence;
+		dto.type = HEARTBEAT;
+		dto.timestamp = Instant.now();
+		return dto;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public String getEntity() {
+		return entity;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+}
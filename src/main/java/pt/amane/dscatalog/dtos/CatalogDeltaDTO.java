@@ -0,0 +1,60 @@
+package pt.amane.dscatalog.dtos;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes since a client's last sync: items created or updated (one page of
+ * them), ids deleted, and the instant to send as updatedSince next time.
+ */
+public class CatalogDeltaDTO<T> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<T> content = new ArrayList<>();
+	private List<Long> deletedIds = new ArrayList<>();
+	private Instant syncedAt;
+	private boolean last;
+	private boolean fullReloadRequired;
+
+	public CatalogDeltaDTO() {
+	}
+
+	public CatalogDeltaDTO(List<T> content, List<Long> deletedIds, Instant syncedAt, boolean last) {
+		this.content = content;
+		this.deletedIds = deletedIds;
+		this.syncedAt = syncedAt;
+		this.last = last;
+	}
+
+	public static <T> CatalogDeltaDTO<T> fullReload(Instant syncedAt) {
+		CatalogDeltaDTO<T> dto = new CatalogDeltaDTO<>();
+		dto.syncedAt = syncedAt;
+		dto.last = true;
+		dto.fullReloadRequired = true;
+		return dto;
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	public List<Long> getDeletedIds() {
+		return deletedIds;
+	}
+
+	public Instant getSyncedAt() {
+		return syncedAt;
+	}
+
+	public boolean isLast() {
+		return last;
+	}
+
+	public boolean isFullReloadRequired() {
+		return fullReloadRequired;
+	}
+
+}
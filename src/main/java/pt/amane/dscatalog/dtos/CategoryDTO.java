@@ -10,6 +10,7 @@ public class CategoryDTO implements Serializable {
 
 	private Long id;
 	private String name;
+	private Long version;
 
 	public CategoryDTO() {
 	}
@@ -22,6 +23,7 @@ public class CategoryDTO implements Serializable {
 	public CategoryDTO(Category category) {
 		id = category.getId();
 		name = category.getName();
+		version = category.getVersion();
 	}
 
 	public Long getId() {
@@ -32,6 +34,10 @@ public class CategoryDTO implements Serializable {
 		return name;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	public void setId(Long id) {
 		this.id = id;
 	}
@@ -40,4 +46,8 @@ public class CategoryDTO implements Serializable {
 		this.name = name;
 	}
 
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 }
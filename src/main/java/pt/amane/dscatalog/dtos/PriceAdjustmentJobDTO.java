@@ -0,0 +1,67 @@
+package pt.amane.dscatalog.dtos;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+public class PriceAdjustmentJobDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String id;
+	private String status;
+	private int total;
+	private int processed;
+	private int updated;
+	private Instant submittedAt;
+	private Instant finishedAt;
+	private String error;
+
+	public PriceAdjustmentJobDTO() {
+	}
+
+	public PriceAdjustmentJobDTO(String id, String status, int total, int processed, int updated, Instant submittedAt,
+			Instant finishedAt, String error) {
+		this.id = id;
+		this.status = status;
+		this.total = total;
+		this.processed = processed;
+		this.updated = updated;
+		this.submittedAt = submittedAt;
+		this.finishedAt = finishedAt;
+		this.error = error;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getProcessed() {
+		return processed;
+	}
+
+	// produtos efetivamente alterados (um valor absoluto negativo nao deixa o preco <= 0)
+	public int getUpdated() {
+		return updated;
+	}
+
+	public Instant getSubmittedAt() {
+		return submittedAt;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+}
@@ -0,0 +1,39 @@
+package pt.amane.dscatalog.dtos;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductBatchDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// na mesma ordem dos ids pedidos
+	private List<ProductDTO> products = new ArrayList<>();
+	private List<Long> missingIds = new ArrayList<>();
+
+	public ProductBatchDTO() {
+	}
+
+	public ProductBatchDTO(List<ProductDTO> products, List<Long> missingIds) {
+		this.products = products;
+		this.missingIds = missingIds;
+	}
+
+	public List<ProductDTO> getProducts() {
+		return products;
+	}
+
+	public List<Long> getMissingIds() {
+		return missingIds;
+	}
+
+	public void setProducts(List<ProductDTO> products) {
+		this.products = products;
+	}
+
+	public void setMissingIds(List<Long> missingIds) {
+		this.missingIds = missingIds;
+	}
+
+}
@@ -31,6 +31,8 @@ public class ProductDTO implements Serializable {
 	@PastOrPresent(message = "The product DATE should be actual!")
 	private Instant date;
 
+	private Long version;
+
 	List<CategoryDTO> categories = new ArrayList<>();
 
 	public ProductDTO() {
@@ -55,6 +57,7 @@ public class ProductDTO implements Serializable {
 		this.price = product.getPrice();
 		this.imgUrl = product.getImgUrl();
 		this.date = product.getDate();
+		this.version = product.getVersion();
 	}
 
 	public ProductDTO(Product product, Set<Category> category) {
@@ -62,6 +65,17 @@ public class ProductDTO implements Serializable {
 		category.forEach(cat -> this.categories.add(new CategoryDTO(cat)));
 	}
 
+	// copia de um DTO guardado em cache, que e compartilhado entre as requisicoes
+	public ProductDTO(ProductDTO dto) {
+		this(dto.id, dto.name, dto.description, dto.price, dto.imgUrl, dto.date);
+		this.version = dto.version;
+		dto.categories.forEach(cat -> {
+			CategoryDTO copy = new CategoryDTO(cat.getId(), cat.getName());
+			copy.setVersion(cat.getVersion());
+			this.categories.add(copy);
+		});
+	}
+
 	public Long getId() {
 		return id;
 	}
@@ -86,6 +100,10 @@ public class ProductDTO implements Serializable {
 		return date;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	public List<CategoryDTO> getCategories() {
 		return categories;
 	}
@@ -114,6 +132,10 @@ public class ProductDTO implements Serializable {
 		this.date = date;
 	}
 
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public void setCategories(List<CategoryDTO> categories) {
 		this.categories = categories;
 	}
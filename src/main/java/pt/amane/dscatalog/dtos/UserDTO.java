@@ -22,6 +22,8 @@ public class UserDTO implements Serializable {
 	@Email(message = "Please enter with valid email!")
 	private String email;
 
+	private Long version;
+
 	Set<RoleDTO> roles = new HashSet<>();
 
 	public UserDTO() {
@@ -41,6 +43,7 @@ public class UserDTO implements Serializable {
 		firstName = user.getFirstName();
 		lastName = user.getLastName();
 		email = user.getEmail();
+		version = user.getVersion();
 		user.getRoles().forEach(role -> this.roles.add(new RoleDTO(role)));
 	}
 
@@ -76,6 +79,14 @@ public class UserDTO implements Serializable {
 		this.email = email;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public Set<RoleDTO> getRoleDTOs() {
 		return roles;
 	}
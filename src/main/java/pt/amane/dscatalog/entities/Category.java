@@ -11,31 +11,47 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToMany;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import org.hibernate.annotations.ManyToAny;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
 
 @Entity
-@Table(name = "tb_category")
+@SQLDelete(sql = "UPDATE tb_category SET deleted_at = CURRENT_TIMESTAMP, version = version + 1 WHERE id = ? AND version = ?")
+@Where(clause = "deleted_at IS NULL")
+@Table(name = "tb_category", indexes = @Index(name = "idx_category_updated_at", columnList = "updatedAt"))
 public class Category implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_category")
+	@SequenceGenerator(name = "seq_category", sequenceName = "seq_category", allocationSize = 50)
 	private Long id;
 	private String name;
 
 	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
 	private Instant createdAt;
 
-	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP")
 	private Instant updatedAt;
 
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant deletedAt;
+
+	@Version
+	@Column(columnDefinition = "BIGINT DEFAULT 0")
+	private Long version;
+
 	@ManyToMany(mappedBy = "categories")
+	@Where(clause = "deleted_at IS NULL")
 	private Set<Product> products = new HashSet<>();
 
 	public Category() {
@@ -76,6 +92,14 @@ public class Category implements Serializable {
 		return updatedAt;
 	}
 
+	public Instant getDeletedAt() {
+		return deletedAt;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
 	public Set<Product> getProducts() {
 		return products;
 	}
@@ -83,6 +107,8 @@ public class Category implements Serializable {
 	@PrePersist
 	public void prePersist() {
 		createdAt = Instant.now();
+		// updatedSince tambem precisa enxergar categorias novas
+		updatedAt = createdAt;
 	}
 
 	@PreUpdate
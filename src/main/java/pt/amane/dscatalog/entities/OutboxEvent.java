@@ -0,0 +1,95 @@
+package pt.amane.dscatalog.entities;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+
+/**
+ * A catalog change waiting to be delivered. Written in the same transaction
+ * as the change itself and deleted once every sink has received it.
+ */
+@Entity
+@Table(name = "tb_outbox_event")
+public class OutboxEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	private String aggregateType;
+	private Long aggregateId;
+	private String eventType;
+
+	@Column(columnDefinition = "TEXT")
+	private String payload;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant createdAt;
+
+	public OutboxEvent() {
+	}
+
+	public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload) {
+		this.aggregateType = aggregateType;
+		this.aggregateId = aggregateId;
+		this.eventType = eventType;
+		this.payload = payload;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getAggregateType() {
+		return aggregateType;
+	}
+
+	public Long getAggregateId() {
+		return aggregateId;
+	}
+
+	public String getEventType() {
+		return eventType;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	@PrePersist
+	public void prePersist() {
+		createdAt = Instant.now();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		OutboxEvent other = (OutboxEvent) obj;
+		return Objects.equals(id, other.id);
+	}
+
+}
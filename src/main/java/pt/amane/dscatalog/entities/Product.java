@@ -11,19 +11,32 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
 
 @Entity
-@Table(name = "tb_product")
+// exclusao logica: deleted_at preenchido some de todas as consultas JPA e e
+// removido de vez pelo CatalogPurgeService
+@SQLDelete(sql = "UPDATE tb_product SET deleted_at = CURRENT_TIMESTAMP, version = version + 1 WHERE id = ? AND version = ?")
+@Where(clause = "deleted_at IS NULL")
+@Table(name = "tb_product", indexes = @Index(name = "idx_product_updated_at", columnList = "updatedAt"))
 public class Product implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_product")
+	@SequenceGenerator(name = "seq_product", sequenceName = "seq_product", allocationSize = 50)
 	private Long id;
 	
 	private String name;
@@ -37,10 +50,24 @@ public class Product implements Serializable {
 	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
 	private Instant date;
 
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP")
+	private Instant createdAt;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP")
+	private Instant updatedAt;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant deletedAt;
+
+	@Version
+	@Column(columnDefinition = "BIGINT DEFAULT 0")
+	private Long version;
+
 	@ManyToMany
 	@JoinTable(name = "tb_product_category",
 			joinColumns = @JoinColumn(name = "product_id"),
 				inverseJoinColumns = @JoinColumn(name = "category_id"))
+	@Where(clause = "deleted_at IS NULL")
 	Set<Category> categories = new HashSet<>();
 
 	public Product() {
@@ -80,6 +107,22 @@ public class Product implements Serializable {
 		return date;
 	}
 
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public Instant getDeletedAt() {
+		return deletedAt;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
 	public Set<Category> getCategories() {
 		return categories;
 	}
@@ -108,6 +151,17 @@ public class Product implements Serializable {
 		this.date = date;
 	}
 
+	@PrePersist
+	public void prePersist() {
+		createdAt = Instant.now();
+		updatedAt = createdAt;
+	}
+
+	@PreUpdate
+	public void preUpdate() {
+		updatedAt = Instant.now();
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(id);
@@ -0,0 +1,76 @@
+package pt.amane.dscatalog.entities;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Marks a deleted product or category so delta sync clients can drop it.
+ */
+@Entity
+@Table(name = "tb_tombstone", indexes = @Index(name = "idx_tombstone_type_deleted_at", columnList = "entityType, deletedAt"))
+public class Tombstone implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	private String entityType;
+	private Long entityId;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant deletedAt;
+
+	public Tombstone() {
+	}
+
+	public Tombstone(String entityType, Long entityId, Instant deletedAt) {
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.deletedAt = deletedAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getEntityType() {
+		return entityType;
+	}
+
+	public Long getEntityId() {
+		return entityId;
+	}
+
+	public Instant getDeletedAt() {
+		return deletedAt;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Tombstone other = (Tombstone) obj;
+		return Objects.equals(id, other.id);
+	}
+
+}
@@ -3,6 +3,7 @@ package pt.amane.dscatalog.entities;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -16,32 +17,47 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import pt.amane.dscatalog.components.RoleRegistry;
+
 @Entity
-@Table(name = "tb_user")
+@Table(name = "tb_user", uniqueConstraints = @UniqueConstraint(name = "uk_user_email", columnNames = "email"))
 public class User implements UserDetails, Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_user")
+	@SequenceGenerator(name = "seq_user", sequenceName = "seq_user", allocationSize = 50)
 	private Long id;
 	private String firstName;
 	private String lastName;
 
-	@Column(unique = true)
+	// sempre normalizado (normalizeEmail): as buscas por email usam o indice unico direto
 	private String email;
 	private String password;
 
-	@ManyToMany(fetch = FetchType.EAGER)
+	@Version
+	@Column(columnDefinition = "BIGINT DEFAULT 0")
+	private Long version;
+
+	// carregados so onde precisa: @EntityGraph no login e fetch join na listagem
+	@ManyToMany(fetch = FetchType.LAZY)
 	@JoinTable(name = "tb_user_role", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
 	private Set<Role> roles = new HashSet<>();
 
+	// bits dos perfis no RoleRegistry, recalculados quando o registro ou os perfis mudam
+	private transient long roleMask;
+	private transient Object roleMaskVersion;
+
 	public User() {
 	}
 
@@ -50,7 +66,7 @@ public class User implements UserDetails, Serializable {
 		this.id = id;
 		this.firstName = firstName;
 		this.lastName = lastName;
-		this.email = email;
+		this.email = normalizeEmail(email);
 		this.password = password;
 	}
 
@@ -87,17 +103,39 @@ public class User implements UserDetails, Serializable {
 	}
 
 	public void setEmail(String email) {
-		this.email = email;
+		this.email = normalizeEmail(email);
 	}
 
 	public void setPassword(String password) {
 		this.password = password;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	public Set<Role> getRoles() {
 		return roles;
 	}
 
+	public void addRole(Role role) {
+		roles.add(role);
+		roleMaskVersion = null;
+	}
+
+	public void clearRoles() {
+		roles.clear();
+		roleMaskVersion = null;
+	}
+
+	/**
+	 * The stored form of an email: trimmed and lower-cased. Lookups must pass
+	 * their input through it.
+	 */
+	public static String normalizeEmail(String email) {
+		return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(id);
@@ -117,7 +155,11 @@ public class User implements UserDetails, Serializable {
 
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
-		return roles.stream().map(role -> new SimpleGrantedAuthority(role.getAuthority())).collect(Collectors.toList());
+		long mask = roleMask();
+		if (mask == RoleRegistry.UNKNOWN) {
+			return roles.stream().map(role -> new SimpleGrantedAuthority(role.getAuthority())).collect(Collectors.toList());
+		}
+		return RoleRegistry.authorities(mask);
 	}
 
 	@Override
@@ -146,6 +188,10 @@ public class User implements UserDetails, Serializable {
 	}
 
 	public boolean hasHole(String rolename) {
+		long mask = roleMask();
+		if (mask != RoleRegistry.UNKNOWN) {
+			return (mask & RoleRegistry.bit(rolename)) != 0;
+		}
 		for (Role role : roles) {
 			if (role.getAuthority().equals(rolename)) {
 				return true;
@@ -154,4 +200,13 @@ public class User implements UserDetails, Serializable {
 		return false;
 	}
 
+	private long roleMask() {
+		Object version = RoleRegistry.version();
+		if (roleMaskVersion != version) {
+			roleMask = RoleRegistry.mask(roles);
+			roleMaskVersion = version;
+		}
+		return roleMask;
+	}
+
 }
@@ -0,0 +1,37 @@
+package pt.amane.dscatalog.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Read-only, non-blocking catalog API (WebFlux + R2DBC) over the same schema as
+ * the servlet application. Starts with the "reactive" profile; only this
+ * package is scanned, so none of the JPA/OAuth2 beans are created.
+ *
+ * Not a @SpringBootConfiguration on purpose: test slices would find two.
+ */
+@Configuration
+@Profile("reactive")
+@EnableAutoConfiguration(exclude = { DataSourceAutoConfiguration.class,
+		DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+		ReactiveUserDetailsServiceAutoConfiguration.class },
+		excludeName = "org.springframework.boot.autoconfigure.security.oauth2.OAuth2AutoConfiguration")
+@ComponentScan
+public class ReactiveCatalogApplication {
+
+	public static void main(String[] args) {
+		SpringApplication application = new SpringApplication(ReactiveCatalogApplication.class);
+		application.setWebApplicationType(WebApplicationType.REACTIVE);
+		application.setAdditionalProfiles("reactive");
+		application.run(args);
+	}
+
+}
@@ -0,0 +1,130 @@
+package pt.amane.dscatalog.reactive;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Row;
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import pt.amane.dscatalog.dtos.ProductDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC versions of the catalog reads. The product listing applies the same
+ * filter as ProductRepository.findAllIdByCategory, pages over product ids and
+ * joins the categories in the same statement; rows arrive ordered by product,
+ * so each ProductDTO is emitted as soon as its last category row is read.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveCatalogRepository {
+
+	// colunas permitidas no ORDER BY (nao podem ser parametros)
+	private static final Map<String, String> SORT_COLUMNS = Map.of("id", "id", "name", "name", "price", "price",
+			"date", "date");
+
+	private static final String PRODUCT_COLUMNS = "p.id, p.name, p.description, p.price, p.img_url, p.date, p.version, "
+			+ "c.id AS category_id, c.name AS category_name, c.version AS category_version ";
+
+	private final DatabaseClient client;
+
+	public ReactiveCatalogRepository(DatabaseClient client) {
+		this.client = client;
+	}
+
+	public Flux<ProductDTO> findAllByCategory(Long categoryId, String name, long offset, int limit, String orderBy,
+			Direction direction) {
+
+		String column = SORT_COLUMNS.getOrDefault(orderBy, "name");
+		String dir = direction.isAscending() ? "ASC" : "DESC";
+
+		String sql = "SELECT " + PRODUCT_COLUMNS
+				+ "FROM (SELECT DISTINCT obj.id, obj." + column + " AS sort_key FROM tb_product obj "
+				+ "INNER JOIN tb_product_category cats ON cats.product_id = obj.id "
+				+ "INNER JOIN tb_category cat ON cat.id = cats.category_id AND cat.deleted_at IS NULL "
+				+ "WHERE obj.deleted_at IS NULL AND (:categoryId = 0 OR cats.category_id = :categoryId) "
+				+ "AND (:name = '' OR LOWER(obj.name) LIKE LOWER(CONCAT('%', :name, '%'))) "
+				+ "ORDER BY sort_key " + dir + ", obj.id LIMIT :limit OFFSET :offset) page "
+				+ "INNER JOIN tb_product p ON p.id = page.id "
+				+ "LEFT JOIN tb_product_category pc ON pc.product_id = p.id "
+				+ "LEFT JOIN tb_category c ON c.id = pc.category_id AND c.deleted_at IS NULL "
+				+ "ORDER BY page.sort_key " + dir + ", p.id";
+
+		return toProducts(client.sql(sql)
+				.bind("categoryId", categoryId)
+				.bind("name", name)
+				.bind("limit", limit)
+				.bind("offset", offset)
+				.map((row, meta) -> new ProductRow(row))
+				.all());
+	}
+
+	public Mono<ProductDTO> findProductById(Long id) {
+		String sql = "SELECT " + PRODUCT_COLUMNS + "FROM tb_product p "
+				+ "LEFT JOIN tb_product_category pc ON pc.product_id = p.id "
+				+ "LEFT JOIN tb_category c ON c.id = pc.category_id AND c.deleted_at IS NULL "
+				+ "WHERE p.id = :id AND p.deleted_at IS NULL";
+
+		return toProducts(client.sql(sql).bind("id", id).map((row, meta) -> new ProductRow(row)).all()).next();
+	}
+
+	public Flux<CategoryDTO> findAllCategories(long offset, int limit) {
+		return client.sql("SELECT id, name, version FROM tb_category WHERE deleted_at IS NULL ORDER BY id LIMIT :limit OFFSET :offset")
+				.bind("limit", limit)
+				.bind("offset", offset)
+				.map((row, meta) -> toCategory(row, "id", "name", "version"))
+				.all();
+	}
+
+	public Mono<CategoryDTO> findCategoryById(Long id) {
+		return client.sql("SELECT id, name, version FROM tb_category WHERE id = :id AND deleted_at IS NULL")
+				.bind("id", id)
+				.map((row, meta) -> toCategory(row, "id", "name", "version"))
+				.one();
+	}
+
+	private Flux<ProductDTO> toProducts(Flux<ProductRow> rows) {
+		return rows.bufferUntilChanged(row -> row.product.getId()).map(this::merge);
+	}
+
+	private ProductDTO merge(List<ProductRow> rows) {
+		ProductDTO dto = rows.get(0).product;
+		for (ProductRow row : rows) {
+			if (row.category != null) {
+				dto.getCategories().add(row.category);
+			}
+		}
+		return dto;
+	}
+
+	private static CategoryDTO toCategory(Row row, String id, String name, String version) {
+		CategoryDTO dto = new CategoryDTO(row.get(id, Long.class), row.get(name, String.class));
+		dto.setVersion(row.get(version, Long.class));
+		return dto;
+	}
+
+	private static class ProductRow {
+
+		final ProductDTO product;
+		final CategoryDTO category;
+
+		ProductRow(Row row) {
+			// JPA grava o Instant como TIMESTAMP WITHOUT TIME ZONE no fuso da JVM
+			LocalDateTime date = row.get("date", LocalDateTime.class);
+			product = new ProductDTO(row.get("id", Long.class), row.get("name", String.class),
+					row.get("description", String.class), row.get("price", Double.class),
+					row.get("img_url", String.class), date == null ? null : date.atZone(ZoneId.systemDefault()).toInstant());
+			product.setVersion(row.get("version", Long.class));
+			category = row.get("category_id", Long.class) == null ? null
+					: toCategory(row, "category_id", "category_name", "category_version");
+		}
+	}
+
+}
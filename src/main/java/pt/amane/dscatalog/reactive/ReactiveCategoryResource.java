@@ -0,0 +1,38 @@
+package pt.amane.dscatalog.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/categories")
+public class ReactiveCategoryResource {
+
+	private final ReactiveCatalogRepository repository;
+
+	public ReactiveCategoryResource(ReactiveCatalogRepository repository) {
+		this.repository = repository;
+	}
+
+	@GetMapping(value = "/{id}")
+	public Mono<ResponseEntity<CategoryDTO>> findById(@PathVariable Long id) {
+		return repository.findCategoryById(id).map(ResponseEntity::ok).defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+
+	@GetMapping(produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+	public Flux<CategoryDTO> findAll(@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "size", defaultValue = "20") Integer size) {
+		return repository.findAllCategories((long) page * size, size);
+	}
+
+}
@@ -0,0 +1,47 @@
+package pt.amane.dscatalog.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import pt.amane.dscatalog.dtos.ProductDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/products")
+public class ReactiveProductResource {
+
+	private final ReactiveCatalogRepository repository;
+
+	public ReactiveProductResource(ReactiveCatalogRepository repository) {
+		this.repository = repository;
+	}
+
+	@GetMapping(value = "/{id}")
+	public Mono<ResponseEntity<ProductDTO>> findById(@PathVariable Long id) {
+		return repository.findProductById(id).map(ResponseEntity::ok).defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+
+	// mesmos parametros do ProductResource; application/x-ndjson emite um produto por linha
+	@GetMapping(produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+	public Flux<ProductDTO> findAll(
+			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+			@RequestParam(value = "name", defaultValue = "") String name,
+			@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "linesPerPage", defaultValue = "12") Integer linesPerPage,
+			@RequestParam(value = "direction", defaultValue = "ASC") String direction,
+			@RequestParam(value = "orderby", defaultValue = "name") String orderby) {
+
+		return repository.findAllByCategory(categoryId, name.trim(), (long) page * linesPerPage, linesPerPage,
+				orderby, Direction.valueOf(direction));
+	}
+
+}
@@ -0,0 +1,28 @@
+package pt.amane.dscatalog.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+	// mesma regra publica do ResourceServerConfig; o resto nao existe nesta API
+	@Bean
+	public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+		return http.csrf().disable()
+				.httpBasic().disable()
+				.formLogin().disable()
+				.authorizeExchange()
+				.pathMatchers(HttpMethod.GET, "/products/**", "/categories/**").permitAll()
+				.anyExchange().denyAll()
+				.and().build();
+	}
+
+}
@@ -1,6 +1,12 @@
 package pt.amane.dscatalog.repositories;
 
+import java.time.Instant;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import pt.amane.dscatalog.entities.Category;
@@ -8,4 +14,11 @@ import pt.amane.dscatalog.entities.Category;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long>{
 
+	Page<Category> findByUpdatedAtAfter(Instant since, Pageable pageable);
+
+	@Modifying
+	@Query("UPDATE Category obj SET obj.deletedAt = :now, obj.version = obj.version + 1 "
+			+ "WHERE obj.id = :id AND obj.deletedAt IS NULL")
+	int softDeleteById(Long id, Instant now);
+
 }
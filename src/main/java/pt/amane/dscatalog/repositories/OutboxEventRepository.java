@@ -0,0 +1,28 @@
+package pt.amane.dscatalog.repositories;
+
+import java.util.List;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import pt.amane.dscatalog.entities.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	// timeout -2 = SKIP LOCKED no Postgres: dispatchers paralelos pegam lotes diferentes
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+	@Query("SELECT obj FROM OutboxEvent obj ORDER BY obj.id")
+	List<OutboxEvent> findBatchForDispatch(Pageable pageable);
+
+	OutboxEvent findFirstByOrderByIdAsc();
+
+}
@@ -1,12 +1,17 @@
 package pt.amane.dscatalog.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import pt.amane.dscatalog.entities.Category;
 import pt.amane.dscatalog.entities.Product;
@@ -23,4 +28,45 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 	@Query("SELECT obj FROM Product obj JOIN FETCH obj.categories WHERE obj IN :products")
 	List<Product> findProductsWithCategories(List<Product> products);
 
+	// ProductService.findAllByIds nao abre transacao: read-only aqui para ir as replicas
+	@Transactional(readOnly = true)
+	@Query("SELECT DISTINCT obj FROM Product obj LEFT JOIN FETCH obj.categories WHERE obj.id IN :ids")
+	List<Product> findWithCategoriesByIdIn(Collection<Long> ids);
+
+	// chamado sem transacao do service: read-only aqui para ir as replicas
+	@Transactional(readOnly = true)
+	@Query("SELECT obj FROM Product obj LEFT JOIN FETCH obj.categories WHERE obj.id = :id")
+	Optional<Product> findWithCategoriesById(Long id);
+
+	// exclusao logica em um unico UPDATE, sem carregar o produto
+	@Modifying
+	@Query("UPDATE Product obj SET obj.deletedAt = :now, obj.version = obj.version + 1 "
+			+ "WHERE obj.id = :id AND obj.deletedAt IS NULL")
+	int softDeleteById(Long id, Instant now);
+
+	Page<Product> findByUpdatedAtAfter(Instant since, Pageable pageable);
+
+	// a lista de categorias dos produtos mudou: eles entram no delta e mudam de versao (ETag)
+	@Modifying
+	@Query("UPDATE Product obj SET obj.updatedAt = :now, obj.version = obj.version + 1 "
+			+ "WHERE obj.id IN :ids AND obj.deletedAt IS NULL")
+	int touch(List<Long> ids, Instant now);
+
+	@Query("SELECT obj.id FROM Product obj JOIN obj.categories cats WHERE cats.id = :categoryId ORDER BY obj.id")
+	List<Long> findIdsByCategory(Long categoryId);
+
+	// reajustes em massa: um UPDATE por lote, arredondado em centavos
+	@Modifying
+	@Query("UPDATE Product obj SET obj.price = FLOOR(obj.price * :factor * 100 + 0.5) / 100, "
+			+ "obj.version = obj.version + 1, obj.updatedAt = :now WHERE obj.id IN :ids AND obj.deletedAt IS NULL")
+	int multiplyPrice(List<Long> ids, double factor, Instant now);
+
+	@Modifying
+	@Query("UPDATE Product obj SET obj.price = obj.price + :amount, obj.version = obj.version + 1, "
+			+ "obj.updatedAt = :now WHERE obj.id IN :ids AND obj.deletedAt IS NULL AND obj.price + :amount > 0")
+	int addToPrice(List<Long> ids, double amount, Instant now);
+
+	@Query("SELECT obj.id, obj.version FROM Product obj WHERE obj.id IN :ids")
+	List<Object[]> findVersions(List<Long> ids);
+
 }
@@ -0,0 +1,24 @@
+package pt.amane.dscatalog.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import pt.amane.dscatalog.entities.Tombstone;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+	@Query("SELECT obj.entityId FROM Tombstone obj WHERE obj.entityType = :entityType AND obj.deletedAt > :since "
+			+ "ORDER BY obj.deletedAt")
+	List<Long> findDeletedIds(String entityType, Instant since);
+
+	@Modifying
+	@Query("DELETE FROM Tombstone obj WHERE obj.deletedAt < :before")
+	int deleteOlderThan(Instant before);
+
+}
@@ -1,6 +1,11 @@
 package pt.amane.dscatalog.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import pt.amane.dscatalog.entities.User;
@@ -8,6 +13,17 @@ import pt.amane.dscatalog.entities.User;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long>{
 
+	// login e token usam as authorities fora da transacao
+	@EntityGraph(attributePaths = "roles")
 	User findByEmail(String email);
 
+	@Query("SELECT DISTINCT obj FROM User obj LEFT JOIN FETCH obj.roles WHERE obj IN :users")
+	List<User> findUsersWithRoles(List<User> users);
+
+	// validacoes: so o indice de email, sem carregar o usuario e os perfis
+	boolean existsByEmail(String email);
+
+	@Query("SELECT obj.id FROM User obj WHERE obj.email = :email")
+	Optional<Long> findIdByEmail(String email);
+
 }
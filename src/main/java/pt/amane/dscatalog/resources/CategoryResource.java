@@ -1,10 +1,18 @@
 package pt.amane.dscatalog.resources;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,10 +20,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import pt.amane.dscatalog.components.SingleFlight;
+import pt.amane.dscatalog.dtos.CatalogDeltaDTO;
 import pt.amane.dscatalog.dtos.CategoryDTO;
 import pt.amane.dscatalog.services.CategoryService;
 
@@ -26,10 +39,23 @@ public class CategoryResource {
 	@Autowired
 	private CategoryService service;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${dscatalog.single-flight.wait-timeout:5s}")
+	private Duration singleFlightWaitTimeout;
+
+	private SingleFlight<Long, CategoryDTO> findByIdFlight;
+
+	@PostConstruct
+	void initSingleFlight() {
+		findByIdFlight = new SingleFlight<>("categories.findById", meterRegistry, singleFlightWaitTimeout);
+	}
+
 	@GetMapping(value = "/{id}")
 	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id) {
-		CategoryDTO dto = service.findById(id);
-		return ResponseEntity.ok().body(dto);
+		CategoryDTO dto = findByIdFlight.execute(id, () -> service.findById(id));
+		return VersionETag.ok(dto.getVersion()).body(dto);
 	}
 
 	@GetMapping
@@ -39,6 +65,16 @@ public class CategoryResource {
 		return ResponseEntity.ok().body(list);
 	}
 
+	@GetMapping(params = "updatedSince")
+	public ResponseEntity<CatalogDeltaDTO<CategoryDTO>> findChangedSince(
+			@RequestParam(value = "updatedSince") Instant updatedSince,
+			@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "linesPerPage", defaultValue = "500") Integer linesPerPage) {
+		PageRequest pageRequest = PageRequest.of(page, linesPerPage, Sort.by("updatedAt", "id"));
+		CatalogDeltaDTO<CategoryDTO> delta = service.findChangedSince(updatedSince, pageRequest);
+		return ResponseEntity.ok().body(delta);
+	}
+
 	@PostMapping
 	public ResponseEntity<CategoryDTO> create(@RequestBody CategoryDTO categoryDTO) {
 		categoryDTO = service.create(categoryDTO);
@@ -48,9 +84,14 @@ public class CategoryResource {
 	}
 
 	@PutMapping(value = "/{id}")
-	public ResponseEntity<CategoryDTO> update(@PathVariable Long id, @RequestBody CategoryDTO dto) {
+	public ResponseEntity<CategoryDTO> update(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestBody CategoryDTO dto) {
+		if (ifMatch != null) {
+			dto.setVersion(VersionETag.parse(ifMatch));
+		}
 		dto = service.update(id, dto);
-		return ResponseEntity.ok().body(dto);
+		return VersionETag.ok(dto.getVersion()).body(dto);
 	}
 
 	@DeleteMapping(value = "/{id}")
@@ -0,0 +1,45 @@
+package pt.amane.dscatalog.resources;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import pt.amane.dscatalog.dtos.PriceAdjustmentDTO;
+import pt.amane.dscatalog.dtos.PriceAdjustmentJobDTO;
+import pt.amane.dscatalog.services.PriceAdjustmentService;
+
+@RestController
+@RequestMapping(value = "/products/price-adjustments")
+public class PriceAdjustmentResource {
+
+	@Autowired
+	private PriceAdjustmentService service;
+
+	// 202: o reajuste roda em segundo plano, o progresso e consultado no Location
+	@PostMapping
+	public ResponseEntity<PriceAdjustmentJobDTO> submit(@RequestBody PriceAdjustmentDTO dto) {
+		PriceAdjustmentJobDTO job = service.submit(dto);
+		URI url = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri();
+		return ResponseEntity.accepted().location(url).body(job);
+	}
+
+	@GetMapping(value = "/{id}")
+	public ResponseEntity<PriceAdjustmentJobDTO> findById(@PathVariable String id) {
+		return ResponseEntity.ok().body(service.findById(id));
+	}
+
+	@DeleteMapping(value = "/{id}")
+	public ResponseEntity<PriceAdjustmentJobDTO> cancel(@PathVariable String id) {
+		return ResponseEntity.accepted().body(service.cancel(id));
+	}
+
+}
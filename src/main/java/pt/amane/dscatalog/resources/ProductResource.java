@@ -1,13 +1,23 @@
 package pt.amane.dscatalog.resources;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,13 +25,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import pt.amane.dscatalog.components.SingleFlight;
+import pt.amane.dscatalog.dtos.CatalogDeltaDTO;
+import pt.amane.dscatalog.dtos.ProductBatchDTO;
 import pt.amane.dscatalog.dtos.ProductDTO;
 import pt.amane.dscatalog.services.ProductService;
+import pt.amane.dscatalog.services.events.CatalogChangeStream;
 
 @RestController
 @RequestMapping(value = "/products")
@@ -31,10 +48,29 @@ public class ProductResource {
 	@Autowired
 	private ProductService service;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${dscatalog.single-flight.wait-timeout:5s}")
+	private Duration singleFlightWaitTimeout;
+
+	@Autowired
+	private CatalogChangeStream changeStream;
+
+	// leituras iguais e simultaneas compartilham uma unica ida ao banco
+	private SingleFlight<Long, ProductDTO> findByIdFlight;
+	private SingleFlight<List<Object>, Page<ProductDTO>> findAllFlight;
+
+	@PostConstruct
+	void initSingleFlight() {
+		findByIdFlight = new SingleFlight<>("products.findById", meterRegistry, singleFlightWaitTimeout);
+		findAllFlight = new SingleFlight<>("products.findAll", meterRegistry, singleFlightWaitTimeout);
+	}
+
 	@GetMapping(value = "/{id}")
 	public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
-		ProductDTO dto = service.findById(id);
-		return ResponseEntity.ok().body(dto);
+		ProductDTO dto = findByIdFlight.execute(id, () -> service.findById(id));
+		return VersionETag.ok(dto.getVersion()).body(dto);
 	}
 	
 	@GetMapping
@@ -48,10 +84,44 @@ public class ProductResource {
 		
 		PageRequest pageRequest = PageRequest.of(page,linesPerPage, Direction.valueOf(direction), orderby);
 		// PARAMETROS: page, size, sort
-		Page<ProductDTO> list = service.findAllPaged(categoryId,name.trim(),pageRequest);
+		String trimmedName = name.trim();
+		Page<ProductDTO> list = findAllFlight.execute(Arrays.asList(categoryId, trimmedName, pageRequest),
+				() -> service.findAllPaged(categoryId, trimmedName, pageRequest));
 		return ResponseEntity.ok().body(list);
 	}
 
+	// SSE (padrao) ou NDJSON; Last-Event-ID / since retomam depois da ultima sequencia recebida
+	@GetMapping(value = "/changes")
+	public ResponseEntity<ResponseBodyEmitter> changes(
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+			@RequestParam(value = "since", required = false) Long since,
+			@RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "") String accept) {
+		Long lastSequence = lastEventId != null ? lastEventId : since;
+		if (accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+					.body(changeStream.subscribe(lastSequence, false));
+		}
+		return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(changeStream.subscribe(lastSequence, true));
+	}
+
+	// GET /products?updatedSince=2021-04-01T00:00:00Z => so o que mudou desde entao
+	@GetMapping(params = "updatedSince")
+	public ResponseEntity<CatalogDeltaDTO<ProductDTO>> findChangedSince(
+			@RequestParam(value = "updatedSince") Instant updatedSince,
+			@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "linesPerPage", defaultValue = "500") Integer linesPerPage) {
+		PageRequest pageRequest = PageRequest.of(page, linesPerPage, Sort.by("updatedAt", "id"));
+		CatalogDeltaDTO<ProductDTO> delta = service.findChangedSince(updatedSince, pageRequest);
+		return ResponseEntity.ok().body(delta);
+	}
+
+	// GET /products?ids=1,2,3 => varios produtos numa so requisicao
+	@GetMapping(params = "ids")
+	public ResponseEntity<ProductBatchDTO> findAllByIds(@RequestParam(value = "ids") List<Long> ids) {
+		ProductBatchDTO batch = service.findAllByIds(ids);
+		return ResponseEntity.ok().body(batch);
+	}
+
 //	@GetMapping
 //	public ResponseEntity<Page<ProductDTO>> finadAll(Pageable pageable){
 //		
@@ -69,9 +139,14 @@ public class ProductResource {
 	}
 
 	@PutMapping(value = "/{id}")
-	public ResponseEntity<ProductDTO> update(@PathVariable Long id, @Valid @RequestBody ProductDTO dto) {
+	public ResponseEntity<ProductDTO> update(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@Valid @RequestBody ProductDTO dto) {
+		if (ifMatch != null) {
+			dto.setVersion(VersionETag.parse(ifMatch));
+		}
 		dto = service.update(id, dto);
-		return ResponseEntity.ok().body(dto);
+		return VersionETag.ok(dto.getVersion()).body(dto);
 	}
 
 	@DeleteMapping(value = "/{id}")
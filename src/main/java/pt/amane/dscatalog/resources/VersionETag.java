@@ -0,0 +1,42 @@
+package pt.amane.dscatalog.resources;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+
+import pt.amane.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Maps entity versions to strong ETags ("3") and back from If-Match headers.
+ */
+public final class VersionETag {
+
+	private VersionETag() {
+	}
+
+	// If-Match: "3", W/"3" ou * (qualquer versao)
+	public static Long parse(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String value = ifMatch.trim();
+		if (value.startsWith("W/")) {
+			value = value.substring(2);
+		}
+		value = value.replace("\"", "");
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			// cabecalho mal formado e erro do cliente, nao conflito de versao
+			throw new BadRequestException("Invalid If-Match header: " + ifMatch, e);
+		}
+	}
+
+	public static BodyBuilder ok(Long version) {
+		BodyBuilder builder = ResponseEntity.ok();
+		if (version != null) {
+			builder.eTag(String.valueOf(version));
+		}
+		return builder;
+	}
+
+}
@@ -1,22 +1,37 @@
 package pt.amane.dscatalog.resources.exceptions;
 
 import java.time.Instant;
+import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import pt.amane.dscatalog.services.exceptions.BadRequestException;
+import pt.amane.dscatalog.services.exceptions.ConflictException;
 import pt.amane.dscatalog.services.exceptions.DataBaseIntegrityViolationException;
+import pt.amane.dscatalog.services.exceptions.FieldValidationException;
+import pt.amane.dscatalog.services.exceptions.ForbiddenException;
 import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
+import pt.amane.dscatalog.services.exceptions.UnAuthorizedException;
 
 @ControllerAdvice
 public class ResourceExceptionHandler {
 
+	@Autowired(required = false)
+	private EntityManagerFactory entityManagerFactory;
+
+	// caminho mais comum (ids inexistentes de robos): excecao sem stack trace e mensagem montada so aqui
 	@ExceptionHandler(ResourceNotFoundException.class)
 	public ResponseEntity<StandardError> objectNotFound(ResourceNotFoundException e, HttpServletRequest request) {
 		HttpStatus status = HttpStatus.NOT_FOUND;
@@ -33,6 +48,91 @@ public class ResourceExceptionHandler {
 		return ResponseEntity.status(status).body(error);
 	}
 	
+	@ExceptionHandler(ForbiddenException.class)
+	public ResponseEntity<StandardError> forbidden(ForbiddenException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.FORBIDDEN;
+		StandardError error = new StandardError(Instant.now(), status.value(), "Forbidden",
+				e.getMessage(), request.getRequestURI());
+		return ResponseEntity.status(status).body(error);
+	}
+
+	@ExceptionHandler(UnAuthorizedException.class)
+	public ResponseEntity<StandardError> unauthorized(UnAuthorizedException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.UNAUTHORIZED;
+		StandardError error = new StandardError(Instant.now(), status.value(), "Unauthorized",
+				e.getMessage(), request.getRequestURI());
+		return ResponseEntity.status(status).body(error);
+	}
+
+	@ExceptionHandler(BadRequestException.class)
+	public ResponseEntity<StandardError> badRequest(BadRequestException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.BAD_REQUEST;
+		StandardError error = new StandardError(Instant.now(), status.value(), "Bad request",
+				e.getMessage(), request.getRequestURI());
+		return ResponseEntity.status(status).body(error);
+	}
+
+	@ExceptionHandler(ConflictException.class)
+	public ResponseEntity<StandardError> conflict(ConflictException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.CONFLICT;
+		StandardError error = new StandardError(Instant.now(), status.value(), "Conflict",
+				e.getMessage(), request.getRequestURI());
+		BodyBuilder builder = ResponseEntity.status(status);
+		if (e.getCurrentVersion() != null) {
+			builder.eTag(String.valueOf(e.getCurrentVersion()));
+		}
+		return builder.body(error);
+	}
+
+	// outra transacao gravou entre a leitura e o flush
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<StandardError> optimisticLock(ObjectOptimisticLockingFailureException e,
+			HttpServletRequest request) {
+		HttpStatus status = HttpStatus.CONFLICT;
+		StandardError error = new StandardError(Instant.now(), status.value(), "Conflict",
+				"Object was updated by another transaction! Id: " + e.getIdentifier(), request.getRequestURI());
+		BodyBuilder builder = ResponseEntity.status(status);
+		Long currentVersion = currentVersion(e);
+		if (currentVersion != null) {
+			builder.eTag(String.valueOf(currentVersion));
+		}
+		return builder.body(error);
+	}
+
+	// a transacao que falhou ja foi desfeita: le a versao gravada pela outra, fora de transacao (primario)
+	private Long currentVersion(ObjectOptimisticLockingFailureException e) {
+		if (entityManagerFactory == null || e.getPersistentClassName() == null || e.getIdentifier() == null) {
+			return null;
+		}
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			List<Long> versions = entityManager
+					.createQuery("SELECT obj.version FROM " + e.getPersistentClassName() + " obj WHERE obj.id = :id",
+							Long.class)
+					.setParameter("id", e.getIdentifier()).getResultList();
+			return versions.isEmpty() ? null : versions.get(0);
+		} catch (RuntimeException ex) {
+			// sem ETag o cliente ainda pode reler o recurso e refazer
+			return null;
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	// email repetido barrado pelo indice unico: mesma resposta da validacao
+	@ExceptionHandler(FieldValidationException.class)
+	public ResponseEntity<ValidationError> fieldValidation(FieldValidationException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+		ValidationError error = new ValidationError();
+		error.setTimeStamp(Instant.now());
+		error.setStatus(status.value());
+		error.setError("Validation exception");
+		error.setMessage(e.getMessage());
+		error.setPath(request.getRequestURI());
+		error.addError(e.getFieldName(), e.getMessage());
+		return ResponseEntity.status(status).body(error);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ValidationError> validation(MethodArgumentNotValidException e, HttpServletRequest request) {
 		HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
@@ -22,7 +22,7 @@ public class AuthService {
 		try {
 			// pega utilizador autenticado..
 			String username = SecurityContextHolder.getContext().getAuthentication().getName();
-			return userRepository.findByEmail(username);
+			return userRepository.findByEmail(User.normalizeEmail(username));
 		} catch (Exception e) {
 			throw new UnAuthorizedException("Invalid User!");
 		}
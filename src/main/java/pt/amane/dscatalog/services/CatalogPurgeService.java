@@ -0,0 +1,78 @@
+package pt.amane.dscatalog.services;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hard-deletes products and categories that were soft-deleted more than
+ * dscatalog.soft-delete.retention ago. Runs off-peak in small batches, one
+ * transaction each, so it never holds long locks on the catalog tables. Plain
+ * SQL because the entities' @Where hides deleted rows from JPA.
+ */
+@Service
+public class CatalogPurgeService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogPurgeService.class);
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${dscatalog.soft-delete.retention:7d}")
+	private Duration retention;
+
+	@Value("${dscatalog.soft-delete.purge-batch-size:500}")
+	private int batchSize;
+
+	@Scheduled(cron = "${dscatalog.soft-delete.purge-cron:0 0 4 * * *}")
+	public void purge() {
+		purgeDeletedBefore(Instant.now().minus(retention));
+	}
+
+	/**
+	 * Removes products and categories soft-deleted before the given instant,
+	 * with their tb_product_category links. Returns the number of rows removed.
+	 */
+	public int purgeDeletedBefore(Instant before) {
+		int products = purge("tb_product", "product_id", before);
+		int categories = purge("tb_category", "category_id", before);
+		logger.info("Purged {} products and {} categories deleted before {}", products, categories, before);
+		return products + categories;
+	}
+
+	private int purge(String table, String joinColumn, Instant before) {
+		MapSqlParameterSource params = new MapSqlParameterSource("before", Timestamp.from(before))
+				.addValue("limit", batchSize);
+		int total = 0;
+		int count;
+		do {
+			count = transactionTemplate.execute(status -> {
+				List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table
+						+ " WHERE deleted_at < :before ORDER BY id LIMIT :limit", params, Long.class);
+				if (ids.isEmpty()) {
+					return 0;
+				}
+				MapSqlParameterSource batch = new MapSqlParameterSource("ids", ids);
+				jdbcTemplate.update("DELETE FROM tb_product_category WHERE " + joinColumn + " IN (:ids)", batch);
+				return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (:ids)", batch);
+			});
+			total += count;
+		} while (count == batchSize);
+		return total;
+	}
+
+}
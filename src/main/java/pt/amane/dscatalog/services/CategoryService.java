@@ -1,34 +1,66 @@
 package pt.amane.dscatalog.services;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.dtos.CatalogDeltaDTO;
 import pt.amane.dscatalog.dtos.CategoryDTO;
 import pt.amane.dscatalog.entities.Category;
 import pt.amane.dscatalog.repositories.CategoryRepository;
-import pt.amane.dscatalog.services.exceptions.DataBaseIntegrityViolationException;
+import pt.amane.dscatalog.repositories.ProductRepository;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+import pt.amane.dscatalog.services.exceptions.ConflictException;
 import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
 public class CategoryService {
 
+	// limite de ids por UPDATE ... IN
+	private static final int TOUCH_CHUNK_SIZE = 500;
+
 	@Autowired
 	private CategoryRepository repository;
 
-	@Transactional(readOnly = true)
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private DeltaSyncService deltaSyncService;
+
+	@Autowired
+	private MissingIdCache missingIds;
+
+	// sem transacao propria, como em ProductService.findById; o findById herdado do
+	// SimpleJpaRepository ja roda read-only (replicas)
+	@Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id")
 	public CategoryDTO findById(Long id) {
+		if (missingIds.isMissing(CatalogChangeEvent.CATEGORY, id)) {
+			throw new ResourceNotFoundException("Category", id);
+		}
+		long stamp = missingIds.stamp(CatalogChangeEvent.CATEGORY);
 		Optional<Category> obj = repository.findById(id);
-		Category cat = obj.orElseThrow(() -> new ResourceNotFoundException(
-				"Object not found! Id: " + id + ", Type: " + Category.class.getName()));
+		Category cat = obj.orElseThrow(() -> {
+			missingIds.markMissing(CatalogChangeEvent.CATEGORY, id, stamp);
+			return new ResourceNotFoundException("Category", id);
+		});
 		return new CategoryDTO(cat);
 	}
 
@@ -38,35 +70,79 @@ public class CategoryService {
 		return list.map(dto -> new CategoryDTO(dto));
 	}
 
+	@Transactional(readOnly = true)
+	public CatalogDeltaDTO<CategoryDTO> findChangedSince(Instant since, Pageable pageable) {
+		Instant syncedAt = deltaSyncService.syncedAt();
+		if (deltaSyncService.requiresFullReload(since)) {
+			return CatalogDeltaDTO.fullReload(syncedAt);
+		}
+		Page<Category> page = repository.findByUpdatedAtAfter(since, pageable);
+		List<Long> deletedIds = pageable.getPageNumber() == 0
+				? deltaSyncService.deletedIdsSince(CatalogChangeEvent.CATEGORY, since)
+				: new ArrayList<>();
+		return new CatalogDeltaDTO<>(page.map(CategoryDTO::new).getContent(), deletedIds, syncedAt, page.isLast());
+	}
+
+	@CacheEvict(cacheNames = CacheConfig.RESPONSES, allEntries = true)
 	@Transactional
 	public CategoryDTO create(CategoryDTO categoryDTO) {
 		Category category = new Category();
 		category.setName(categoryDTO.getName());
 		repository.save(category);
+		eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.CREATED,
+				CatalogChangeEvent.CATEGORY, category.getId(), category.getVersion()));
 		return new CategoryDTO(category);
 	}
 
+	// produtos em cache levam o nome da categoria
+	@Caching(evict = { @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+			@CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true),
+			@CacheEvict(cacheNames = CacheConfig.RESPONSES, allEntries = true) })
 	@Transactional
 	public CategoryDTO update(Long id, CategoryDTO dto) {
 		try {
 			Category cat = repository.getOne(id);
+			if (dto.getVersion() != null && !dto.getVersion().equals(cat.getVersion())) {
+				throw new ConflictException("Version conflict! Id: " + id + ", Type: Category, Current version: "
+						+ cat.getVersion(), cat.getVersion());
+			}
 			cat.setName(dto.getName());
 			cat = repository.save(cat);
+			repository.flush();
+			eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED,
+					CatalogChangeEvent.CATEGORY, id, cat.getVersion()));
 			return new CategoryDTO(cat);
 		} catch (EntityNotFoundException e) {
-			throw new ResourceNotFoundException("Id not found! Id: " + id + ", Type: " + CategoryDTO.class.getName());
+			throw new ResourceNotFoundException("Category", id);
 		}
 	}
 
+	@Caching(evict = { @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+			@CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true),
+			@CacheEvict(cacheNames = CacheConfig.RESPONSES, allEntries = true) })
+	@Transactional
 	public void delete(Long id) {
-		try {
-			repository.deleteById(id);
-		} catch (EmptyResultDataAccessException e) {
-			throw new ResourceNotFoundException("Id not found! Id: " + id);
-		} catch (DataIntegrityViolationException e) {
-			throw new DataBaseIntegrityViolationException("category cannot be deleted! has associated object..");
+		// os produtos continuam, so deixam de listar a categoria; lidos antes da exclusao, que o join ainda a ve
+		Instant now = Instant.now();
+		List<Long> productIds = productRepository.findIdsByCategory(id);
+		if (repository.softDeleteById(id, now) == 0) {
+			throw new ResourceNotFoundException("Category", id);
 		}
+		touchProducts(productIds, now);
+		eventPublisher.publishEvent(
+				new CatalogChangeEvent(CatalogChangeEvent.Type.DELETED, CatalogChangeEvent.CATEGORY, id, null));
+	}
 
+	// um UPDATED por produto, como no reajuste de precos: stream, outbox e caches ficam sabendo da nova versao
+	private void touchProducts(List<Long> productIds, Instant now) {
+		for (int from = 0; from < productIds.size(); from += TOUCH_CHUNK_SIZE) {
+			List<Long> chunk = productIds.subList(from, Math.min(from + TOUCH_CHUNK_SIZE, productIds.size()));
+			productRepository.touch(chunk, now);
+			for (Object[] row : productRepository.findVersions(chunk)) {
+				eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED,
+						CatalogChangeEvent.PRODUCT, (Long) row[0], (Long) row[1]));
+			}
+		}
 	}
 
 }
@@ -0,0 +1,73 @@
+package pt.amane.dscatalog.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import pt.amane.dscatalog.entities.Tombstone;
+import pt.amane.dscatalog.repositories.TombstoneRepository;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+/**
+ * Tombstones and time bounds for the updatedSince delta queries. Tombstones
+ * are kept for dscatalog.delta.tombstone-retention; a client whose last sync
+ * is older than that has to reload everything.
+ */
+@Service
+public class DeltaSyncService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DeltaSyncService.class);
+
+	@Autowired
+	private TombstoneRepository repository;
+
+	@Value("${dscatalog.delta.tombstone-retention:30d}")
+	private Duration retention;
+
+	// transacoes ainda sem commit podem ter updatedAt um pouco anterior a agora
+	@Value("${dscatalog.delta.safety-window:5s}")
+	private Duration safetyWindow;
+
+	/**
+	 * The updatedSince the client should send next time. Lags behind now by the
+	 * safety window, so a change may be sent twice but is never skipped.
+	 */
+	public Instant syncedAt() {
+		return Instant.now().minus(safetyWindow);
+	}
+
+	public boolean requiresFullReload(Instant since) {
+		return since.isBefore(Instant.now().minus(retention));
+	}
+
+	@Transactional(readOnly = true)
+	public List<Long> deletedIdsSince(String entityType, Instant since) {
+		return repository.findDeletedIds(entityType, since);
+	}
+
+	@EventListener
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void onChange(CatalogChangeEvent event) {
+		if (event.getType() == CatalogChangeEvent.Type.DELETED) {
+			repository.save(new Tombstone(event.getEntity(), event.getId(), event.getTimestamp()));
+		}
+	}
+
+	@Scheduled(cron = "${dscatalog.delta.tombstone-purge-cron:0 30 3 * * *}")
+	@Transactional
+	public void purgeTombstones() {
+		int purged = repository.deleteOlderThan(Instant.now().minus(retention));
+		logger.info("Purged {} tombstones older than {}", purged, retention);
+	}
+
+}
@@ -0,0 +1,108 @@
+package pt.amane.dscatalog.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+/**
+ * Ids of products and categories recently looked up and not found, so repeated
+ * lookups of the same missing id answer 404 without a transaction. Bounded in
+ * size and kept for a short TTL.
+ *
+ * An id is forgotten when its CREATED event commits. A lookup that read the
+ * table before that commit and records its miss after it is caught by the
+ * creation counter (see stamp()). Rows created by another instance, or
+ * inserted without an event, are only seen once the entry expires; the seed
+ * loader clears everything after a load.
+ */
+@Component
+public class MissingIdCache {
+
+	private final Map<String, Ids> byEntity;
+
+	@Autowired
+	public MissingIdCache(@Value("${dscatalog.cache.missing.ttl:30s}") Duration ttl,
+			@Value("${dscatalog.cache.missing.max-size:100000}") long maxSize) {
+		byEntity = Map.of(CatalogChangeEvent.PRODUCT, new Ids(ttl, maxSize), CatalogChangeEvent.CATEGORY,
+				new Ids(ttl, maxSize));
+	}
+
+	public boolean isMissing(String entity, Long id) {
+		return id != null && ids(entity).cache.getIfPresent(id) != null;
+	}
+
+	/**
+	 * Taken before the lookup and passed to markMissing().
+	 */
+	public long stamp(String entity) {
+		return ids(entity).creations.get();
+	}
+
+	public void markMissing(String entity, Long id, long stamp) {
+		if (id == null) {
+			return;
+		}
+		Ids ids = ids(entity);
+		ids.cache.put(id, Boolean.TRUE);
+		// algo foi criado desde o stamp: pode ser este id, lido antes do commit
+		if (ids.creations.get() != stamp) {
+			ids.cache.invalidate(id);
+		}
+	}
+
+	public void invalidate(String entity, Long id) {
+		Ids ids = ids(entity);
+		// contador antes da remocao: markMissing ve um ou o outro
+		ids.creations.incrementAndGet();
+		ids.cache.invalidate(id);
+	}
+
+	public void clear() {
+		for (Ids ids : byEntity.values()) {
+			ids.creations.incrementAndGet();
+			ids.cache.invalidateAll();
+		}
+	}
+
+	public long size(String entity) {
+		return ids(entity).cache.estimatedSize();
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onChange(CatalogChangeEvent event) {
+		if (event.getType() == CatalogChangeEvent.Type.CREATED) {
+			invalidate(event.getEntity(), event.getId());
+		}
+	}
+
+	private Ids ids(String entity) {
+		Ids ids = byEntity.get(entity);
+		if (ids == null) {
+			throw new IllegalArgumentException("Unknown entity: " + entity);
+		}
+		return ids;
+	}
+
+	private static final class Ids {
+
+		final Cache<Long, Boolean> cache;
+		final AtomicLong creations = new AtomicLong();
+
+		Ids(Duration ttl, long maxSize) {
+			cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+		}
+
+	}
+
+}
@@ -0,0 +1,53 @@
+package pt.amane.dscatalog.services;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import pt.amane.dscatalog.dtos.PriceAdjustmentJobDTO;
+
+/**
+ * State of one running or finished price adjustment, shared between the
+ * request threads (polling, cancel) and the thread running it.
+ */
+class PriceAdjustmentJob {
+
+	enum Status {
+		PENDING, RUNNING, COMPLETED, CANCELLED, FAILED
+	}
+
+	final String id = UUID.randomUUID().toString();
+	final List<Long> productIds;
+	final Double factor;
+	final Double amount;
+	final Instant submittedAt = Instant.now();
+
+	volatile Status status = Status.PENDING;
+	volatile boolean cancelRequested;
+	volatile int processed;
+	volatile int updated;
+	volatile Instant finishedAt;
+	volatile String error;
+
+	PriceAdjustmentJob(List<Long> productIds, Double factor, Double amount) {
+		this.productIds = productIds;
+		this.factor = factor;
+		this.amount = amount;
+	}
+
+	boolean isFinished() {
+		return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+	}
+
+	void finish(Status status, String error) {
+		this.error = error;
+		this.finishedAt = Instant.now();
+		this.status = status;
+	}
+
+	PriceAdjustmentJobDTO toDTO() {
+		return new PriceAdjustmentJobDTO(id, status.name(), productIds.size(), processed, updated, submittedAt,
+				finishedAt, error);
+	}
+
+}
@@ -0,0 +1,103 @@
+package pt.amane.dscatalog.services;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.repositories.ProductRepository;
+import pt.amane.dscatalog.services.PriceAdjustmentJob.Status;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+/**
+ * Runs a price adjustment in chunks, one set-based UPDATE and one transaction
+ * per chunk. Each chunk bumps version and updatedAt, publishes UPDATED events
+ * and evicts the cached products after its commit, so caches, the change
+ * stream, the outbox and delta sync see the new prices chunk by chunk.
+ * Cancelling stops before the next chunk; chunks already committed stay.
+ */
+@Component
+class PriceAdjustmentJobRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(PriceAdjustmentJobRunner.class);
+
+	@Autowired
+	private ProductRepository repository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${dscatalog.price-jobs.chunk-size:500}")
+	private int chunkSize;
+
+	@Async
+	public void run(PriceAdjustmentJob job) {
+		job.status = Status.RUNNING;
+		try {
+			List<Long> ids = job.productIds;
+			for (int from = 0; from < ids.size(); from += chunkSize) {
+				if (job.cancelRequested) {
+					job.finish(Status.CANCELLED, null);
+					return;
+				}
+				List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+				Integer updated = transactionTemplate.execute(status -> applyChunk(job, chunk));
+				job.updated += updated;
+				job.processed += chunk.size();
+			}
+			job.finish(Status.COMPLETED, null);
+			logger.info("Price adjustment {} completed: {} of {} products updated", job.id, job.updated,
+					ids.size());
+		} catch (RuntimeException e) {
+			logger.error("Price adjustment {} failed after {} products", job.id, job.processed, e);
+			job.finish(Status.FAILED, e.getMessage());
+		}
+	}
+
+	private int applyChunk(PriceAdjustmentJob job, List<Long> chunk) {
+		Map<Long, Long> versions = new HashMap<>();
+		for (Object[] row : repository.findVersions(chunk)) {
+			versions.put((Long) row[0], (Long) row[1]);
+		}
+		Instant now = Instant.now();
+		int updated = job.factor != null ? repository.multiplyPrice(chunk, job.factor, now)
+				: repository.addToPrice(chunk, job.amount, now);
+
+		// versao diferente da lida antes do UPDATE: linha alterada por este lote (ou por
+		// uma escrita confirmada entre as leituras, que so repete o evento). Caches
+		// transacionais: a remocao vem depois do commit e do evento (ordem de registro),
+		// como espera CatalogChangeStream.lastSequence()
+		Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+		for (Object[] row : repository.findVersions(chunk)) {
+			Long id = (Long) row[0];
+			Long version = (Long) row[1];
+			if (version.equals(versions.get(id))) {
+				continue;
+			}
+			eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED,
+					CatalogChangeEvent.PRODUCT, id, version));
+			products.evict(id);
+		}
+		cacheManager.getCache(CacheConfig.RESPONSES).clear();
+		return updated;
+	}
+
+}
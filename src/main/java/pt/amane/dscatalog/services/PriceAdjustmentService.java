@@ -0,0 +1,100 @@
+package pt.amane.dscatalog.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import pt.amane.dscatalog.dtos.PriceAdjustmentDTO;
+import pt.amane.dscatalog.dtos.PriceAdjustmentJobDTO;
+import pt.amane.dscatalog.repositories.CategoryRepository;
+import pt.amane.dscatalog.repositories.ProductRepository;
+import pt.amane.dscatalog.services.exceptions.BadRequestException;
+import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
+
+/**
+ * Bulk price adjustments run in the background. Jobs are kept in memory, per
+ * instance, for dscatalog.price-jobs.retention after they finish.
+ */
+@Service
+public class PriceAdjustmentService {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private PriceAdjustmentJobRunner runner;
+
+	@Value("${dscatalog.price-jobs.retention:1h}")
+	private Duration retention;
+
+	private final Map<String, PriceAdjustmentJob> jobs = new ConcurrentHashMap<>();
+
+	public PriceAdjustmentJobDTO submit(PriceAdjustmentDTO dto) {
+		boolean byCategory = dto.getCategoryId() != null;
+		boolean byIds = dto.getProductIds() != null && !dto.getProductIds().isEmpty();
+		if (byCategory == byIds) {
+			throw new BadRequestException("Inform either categoryId or productIds!");
+		}
+		if ((dto.getPercentage() == null) == (dto.getAmount() == null)) {
+			throw new BadRequestException("Inform either percentage or amount!");
+		}
+		if (dto.getPercentage() != null && dto.getPercentage() <= -100) {
+			throw new BadRequestException("Percentage must be greater than -100!");
+		}
+
+		List<Long> ids;
+		if (byCategory) {
+			if (!categoryRepository.existsById(dto.getCategoryId())) {
+				throw new ResourceNotFoundException("Category", dto.getCategoryId());
+			}
+			ids = productRepository.findIdsByCategory(dto.getCategoryId());
+		} else {
+			// ordenados: os chunks travam as linhas sempre na mesma ordem
+			ids = new ArrayList<>(new TreeSet<>(dto.getProductIds()));
+		}
+
+		Double factor = dto.getPercentage() != null ? 1 + dto.getPercentage() / 100 : null;
+		PriceAdjustmentJob job = new PriceAdjustmentJob(ids, factor, dto.getAmount());
+		removeExpired();
+		jobs.put(job.id, job);
+		runner.run(job);
+		return job.toDTO();
+	}
+
+	public PriceAdjustmentJobDTO findById(String id) {
+		return find(id).toDTO();
+	}
+
+	public PriceAdjustmentJobDTO cancel(String id) {
+		PriceAdjustmentJob job = find(id);
+		if (!job.isFinished()) {
+			job.cancelRequested = true;
+		}
+		return job.toDTO();
+	}
+
+	private PriceAdjustmentJob find(String id) {
+		PriceAdjustmentJob job = jobs.get(id);
+		if (job == null) {
+			throw new ResourceNotFoundException("PriceAdjustmentJob", id);
+		}
+		return job;
+	}
+
+	private void removeExpired() {
+		Instant limit = Instant.now().minus(retention);
+		jobs.values().removeIf(job -> job.isFinished() && job.finishedAt.isBefore(limit));
+	}
+
+}
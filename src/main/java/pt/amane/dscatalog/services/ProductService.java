@@ -1,25 +1,43 @@
 package pt.amane.dscatalog.services;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.dtos.CatalogDeltaDTO;
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import pt.amane.dscatalog.dtos.ProductBatchDTO;
 import pt.amane.dscatalog.dtos.ProductDTO;
 import pt.amane.dscatalog.entities.Category;
 import pt.amane.dscatalog.entities.Product;
 import pt.amane.dscatalog.repositories.CategoryRepository;
 import pt.amane.dscatalog.repositories.ProductRepository;
-import pt.amane.dscatalog.services.exceptions.DataBaseIntegrityViolationException;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+import pt.amane.dscatalog.services.events.CatalogChangeStream;
+import pt.amane.dscatalog.services.exceptions.BadRequestException;
+import pt.amane.dscatalog.services.exceptions.ConflictException;
 import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
@@ -31,11 +49,39 @@ public class ProductService {
 	@Autowired
 	private CategoryRepository categoryRepository;
 
-	@Transactional(readOnly = true)
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private DeltaSyncService deltaSyncService;
+
+	@Autowired
+	private MissingIdCache missingIds;
+
+	@Autowired
+	private CatalogChangeStream changeStream;
+
+	@Value("${dscatalog.products.batch-max-ids:100}")
+	private int batchMaxIds;
+
+	/**
+	 * Sem transacao propria: um id ja conhecido como inexistente responde 404 sem
+	 * abrir conexao; os demais vao numa unica query com as categorias.
+	 */
+	@Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
 	public ProductDTO findById(Long id) {
-		Optional<Product> productId = repository.findById(id);
-		Product product = productId.orElseThrow(() -> new ResourceNotFoundException(
-				"Object not found! Id: " + id + ", Type: " + ProductDTO.class.getName()));
+		if (missingIds.isMissing(CatalogChangeEvent.PRODUCT, id)) {
+			throw new ResourceNotFoundException("Product", id);
+		}
+		long stamp = missingIds.stamp(CatalogChangeEvent.PRODUCT);
+		Optional<Product> productId = repository.findWithCategoriesById(id);
+		Product product = productId.orElseThrow(() -> {
+			missingIds.markMissing(CatalogChangeEvent.PRODUCT, id, stamp);
+			return new ResourceNotFoundException("Product", id);
+		});
 		return new ProductDTO(product, product.getCategories());
 	}
 
@@ -47,36 +93,123 @@ public class ProductService {
 		return page.map(dto -> new ProductDTO(dto, dto.getCategories()));
 	}
 
+	/**
+	 * Produtos criados ou alterados depois de since, em ordem de updatedAt. Os ids
+	 * excluidos vao so na primeira pagina.
+	 */
+	@Transactional(readOnly = true)
+	public CatalogDeltaDTO<ProductDTO> findChangedSince(Instant since, Pageable pageable) {
+		Instant syncedAt = deltaSyncService.syncedAt();
+		if (deltaSyncService.requiresFullReload(since)) {
+			return CatalogDeltaDTO.fullReload(syncedAt);
+		}
+		Page<Product> page = repository.findByUpdatedAtAfter(since, pageable);
+		if (page.hasContent()) {
+			repository.findProductsWithCategories(page.getContent());
+		}
+		List<Long> deletedIds = pageable.getPageNumber() == 0
+				? deltaSyncService.deletedIdsSince(CatalogChangeEvent.PRODUCT, since)
+				: new ArrayList<>();
+		return new CatalogDeltaDTO<>(page.map(p -> new ProductDTO(p, p.getCategories())).getContent(), deletedIds,
+				syncedAt, page.isLast());
+	}
+
+	/**
+	 * Busca varios produtos de uma vez: primeiro no cache, o resto numa unica
+	 * query com JOIN FETCH (read-only, no repositorio). Sem transacao propria
+	 * para que um lote todo em cache nao abra conexao. Quem chama recebe copias:
+	 * os DTOs do cache sao compartilhados.
+	 */
+	public ProductBatchDTO findAllByIds(List<Long> ids) {
+		Set<Long> requested = new LinkedHashSet<>(ids);
+		if (requested.size() > batchMaxIds) {
+			throw new BadRequestException("Too many ids! Max: " + batchMaxIds);
+		}
+
+		Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+		Map<Long, ProductDTO> found = new LinkedHashMap<>();
+		List<Long> misses = new ArrayList<>();
+		for (Long id : requested) {
+			ProductDTO cached = cache.get(id, ProductDTO.class);
+			if (cached != null) {
+				found.put(id, new ProductDTO(cached));
+			} else {
+				misses.add(id);
+			}
+		}
+
+		if (!misses.isEmpty()) {
+			long stamp = changeStream.lastSequence();
+			for (Product product : repository.findWithCategoriesByIdIn(misses)) {
+				ProductDTO dto = new ProductDTO(product, product.getCategories());
+				cache.put(product.getId(), new ProductDTO(dto));
+				found.put(product.getId(), dto);
+			}
+			// mudanca confirmada durante a leitura: o despejo dela pode ter vindo antes
+			// destes puts, que entao guardariam a versao antiga
+			if (changeStream.lastSequence() != stamp) {
+				misses.forEach(cache::evict);
+			}
+		}
+
+		List<ProductDTO> products = new ArrayList<>(requested.size());
+		List<Long> notFound = new ArrayList<>();
+		for (Long id : requested) {
+			ProductDTO dto = found.get(id);
+			if (dto != null) {
+				products.add(dto);
+			} else {
+				notFound.add(id);
+			}
+		}
+		return new ProductBatchDTO(products, notFound);
+	}
+
+	@CacheEvict(cacheNames = CacheConfig.RESPONSES, allEntries = true)
 	@Transactional
 	public ProductDTO create(ProductDTO dto) {
 		Product product = new Product();
 		copyDtoToProducty(dto, product);
 		product = repository.save(product);
+		eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.CREATED, CatalogChangeEvent.PRODUCT,
+				product.getId(), product.getVersion()));
 		return new ProductDTO(product);
 	}
 
+	@Caching(evict = { @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+			@CacheEvict(cacheNames = CacheConfig.RESPONSES, allEntries = true) })
 	@Transactional
 	public ProductDTO update(Long id, ProductDTO dto) {
 		try {
 			Product product = repository.getOne(id);
+			// versao enviada pelo cliente (If-Match ou corpo) tem que ser a atual
+			if (dto.getVersion() != null && !dto.getVersion().equals(product.getVersion())) {
+				throw new ConflictException("Version conflict! Id: " + id + ", Type: Product, Current version: "
+						+ product.getVersion(), product.getVersion());
+			}
 			copyDtoToProducty(dto, product);
 			product = repository.save(product);
+			// flush para devolver a nova versao
+			repository.flush();
+			eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED,
+					CatalogChangeEvent.PRODUCT, id, product.getVersion()));
 			return new ProductDTO(product);
 		} catch (EntityNotFoundException e) {
-			throw new ResourceNotFoundException("Id not found! Id: " + id + ", Type: " + ProductDTO.class.getName());
+			throw new ResourceNotFoundException("Product", id);
 		}
 
 	}
 
-	
+	@Caching(evict = { @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+			@CacheEvict(cacheNames = CacheConfig.RESPONSES, allEntries = true) })
+	@Transactional
 	public void delete(Long id) {
-		try {
-			repository.deleteById(id);
-		} catch (EmptyResultDataAccessException e) {
-			throw new ResourceNotFoundException("Id not found! Id: " + id);
-		} catch (DataIntegrityViolationException e) {
-			throw new DataBaseIntegrityViolationException("category cannot be deleted! has associated object..");
+		// exclusao logica; o CatalogPurgeService apaga de vez depois da retencao
+		if (repository.softDeleteById(id, Instant.now()) == 0) {
+			throw new ResourceNotFoundException("Product", id);
 		}
+		eventPublisher.publishEvent(
+				new CatalogChangeEvent(CatalogChangeEvent.Type.DELETED, CatalogChangeEvent.PRODUCT, id, null));
 	}
 
 	private void copyDtoToProducty(ProductDTO dto, Product product) {
@@ -87,11 +220,20 @@ public class ProductService {
 		product.setImgUrl(dto.getImgUrl());
 		product.setPrice(dto.getPrice());
 		
-		product.getCategories().clear();
-		for(Category catDTO: product.getCategories()) {
-			Category category = categoryRepository.getOne(catDTO.getId());
-			product.getCategories().add(category);
+		// uma consulta para todas as categorias (getOne inicializaria cada proxy no hashCode do Set);
+		// as linhas de tb_product_category saem em um batch no flush
+		List<Long> categoryIds = new ArrayList<>();
+		for(CategoryDTO catDTO: dto.getCategories()) {
+			categoryIds.add(catDTO.getId());
 		}
+		List<Category> categories = categoryRepository.findAllById(categoryIds);
+		for(Long categoryId: categoryIds) {
+			if (categories.stream().noneMatch(category -> category.getId().equals(categoryId))) {
+				throw new ResourceNotFoundException("Category", categoryId);
+			}
+		}
+		product.getCategories().clear();
+		product.getCategories().addAll(categories);
 	}
 
 }
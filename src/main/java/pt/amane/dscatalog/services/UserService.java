@@ -7,6 +7,7 @@ import javax.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
@@ -18,16 +19,19 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import pt.amane.dscatalog.components.RoleRegistry;
 import pt.amane.dscatalog.dtos.RoleDTO;
 import pt.amane.dscatalog.dtos.UserDTO;
 import pt.amane.dscatalog.dtos.UserInsertDTO;
 import pt.amane.dscatalog.dtos.UserUpdateDTO;
-import pt.amane.dscatalog.entities.Role;
 import pt.amane.dscatalog.entities.User;
 import pt.amane.dscatalog.repositories.RoleRepository;
 import pt.amane.dscatalog.repositories.UserRepository;
+import pt.amane.dscatalog.services.exceptions.ConflictException;
 import pt.amane.dscatalog.services.exceptions.DataBaseIntegrityViolationException;
+import pt.amane.dscatalog.services.exceptions.FieldValidationException;
 import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
+import pt.amane.dscatalog.services.validation.EmailBloomFilter;
 
 @Service
 public class UserService implements UserDetailsService{
@@ -45,6 +49,12 @@ public class UserService implements UserDetailsService{
 	
 	@Autowired
 	private AuthService authService;
+
+	@Autowired
+	private EmailBloomFilter emailFilter;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
 	
 	@Transactional(readOnly = true)
 	public UserDTO findById(Long id) {
@@ -52,15 +62,18 @@ public class UserService implements UserDetailsService{
 		authService.validateSelfOrAdmin(id);
 				
 		Optional<User> userId = repository.findById(id);
-		User user = userId.orElseThrow(() -> new ResourceNotFoundException(
-				"Object not found! Id: " + id + ", Type: " + UserDTO.class.getName()));
+		User user = userId.orElseThrow(() -> new ResourceNotFoundException("User", id));
 		return new UserDTO(user);
 	}
 
 	@Transactional(readOnly = true)
 	public Page<UserDTO> findAllPaged(Pageable pageable) {
-		Page<User> products = repository.findAll(pageable);
-		return products.map(dto -> new UserDTO(dto));
+		// uma consulta para a pagina e outra para os perfis de todos os usuarios dela
+		Page<User> page = repository.findAll(pageable);
+		if (page.hasContent()) {
+			repository.findUsersWithRoles(page.getContent());
+		}
+		return page.map(dto -> new UserDTO(dto));
 	}
 
 	@Transactional
@@ -68,7 +81,13 @@ public class UserService implements UserDetailsService{
 		User user = new User();
 		copyDtoToUsery(dto, user);
 		user.setPassword(passwordEncoder.encode(dto.getPassword()));
-		user = repository.save(user);
+		try {
+			// com id de sequencia o INSERT so sairia no commit, fora deste catch
+			user = repository.saveAndFlush(user);
+		} catch (DataIntegrityViolationException e) {
+			throw emailViolation(e);
+		}
+		emailFilter.put(user.getEmail());
 		return new UserDTO(user);
 	}
 
@@ -76,11 +95,19 @@ public class UserService implements UserDetailsService{
 	public UserDTO update(Long id, UserUpdateDTO dto) {
 		try {
 			User user = repository.getOne(id);
+			if (dto.getVersion() != null && !dto.getVersion().equals(user.getVersion())) {
+				throw new ConflictException("Version conflict! Id: " + id + ", Type: User, Current version: "
+						+ user.getVersion(), user.getVersion());
+			}
 			copyDtoToUsery(dto, user);
 			user = repository.save(user);
+			repository.flush();
+			emailFilter.put(user.getEmail());
 			return new UserDTO(user);
+		} catch (DataIntegrityViolationException e) {
+			throw emailViolation(e);
 		} catch (EntityNotFoundException e) {
-			throw new ResourceNotFoundException("Id not found! Id: " + id + ", Type: " + UserDTO.class.getName());
+			throw new ResourceNotFoundException("User", id);
 		}
 	}
 
@@ -88,29 +115,42 @@ public class UserService implements UserDetailsService{
 		try {
 			repository.deleteById(id);
 		} catch (EmptyResultDataAccessException e) {
-			throw new ResourceNotFoundException("Id not found! Id: " + id);
+			throw new ResourceNotFoundException("User", id);
 		} catch (DataIntegrityViolationException e) {
 			throw new DataBaseIntegrityViolationException("category cannot be deleted! has associated object..");
 		}
 	}
 
+	// o indice unico decide quando dois cadastros passam juntos pela validacao
+	private RuntimeException emailViolation(DataIntegrityViolationException e) {
+		String cause = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+		if (cause.toLowerCase().contains("email")) {
+			return new FieldValidationException("email", "This email exist in data base!", e);
+		}
+		return e;
+	}
+
 	private void copyDtoToUsery(UserDTO dto, User user) {
 
 		user.setFirstName(dto.getFirstName());
 		user.setLastName(dto.getLastName());
 		user.setEmail(dto.getEmail());
 		
-		user.getRoles().clear();
+		user.clearRoles();
 		for(RoleDTO roleDTO: dto.getRoleDTOs()) {
-			Role role = roleRepository.getOne(roleDTO.getId());
-			user.getRoles().add(role);
+			// o registro valida o id sem consulta; getOne so cria a referencia
+			if (!roleRegistry.contains(roleDTO.getId())) {
+				throw new FieldValidationException("roles", "Role not found! Id: " + roleDTO.getId(), null);
+			}
+			user.addRole(roleRepository.getOne(roleDTO.getId()));
 		}
 	}
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		
-		User user = repository.findByEmail(username);
+		// login sem diferenciar maiusculas, pelo indice unico do email normalizado
+		User user = repository.findByEmail(User.normalizeEmail(username));
 		if(user == null) {
 			logger.error("Email not found! " + username);
 			throw new UsernameNotFoundException("Email not found!");
@@ -0,0 +1,56 @@
+package pt.amane.dscatalog.services.events;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A product or category created, updated or deleted. Published by the
+ * services inside the write transaction; listeners that must only see
+ * committed changes use @TransactionalEventListener(AFTER_COMMIT).
+ */
+public class CatalogChangeEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	public static final String PRODUCT = "product";
+	public static final String CATEGORY = "category";
+
+	private final Type type;
+	private final String entity;
+	private final Long id;
+	private final Long version;
+	private final Instant timestamp;
+
+	public CatalogChangeEvent(Type type, String entity, Long id, Long version) {
+		this.type = type;
+		this.entity = entity;
+		this.id = id;
+		this.version = version;
+		this.timestamp = Instant.now();
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getEntity() {
+		return entity;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+}
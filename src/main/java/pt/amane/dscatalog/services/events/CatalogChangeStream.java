@@ -0,0 +1,314 @@
+package pt.amane.dscatalog.services.events;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import pt.amane.dscatalog.dtos.CatalogChangeDTO;
+
+/**
+ * Fan-out of committed catalog changes to SSE / NDJSON subscribers.
+ *
+ * Every change gets a sequence number and is kept in a ring buffer, so a
+ * client reconnecting with the last sequence it saw gets the missed changes
+ * replayed (or a RESET when they are no longer buffered). Each subscriber has
+ * a bounded queue drained by a small sender pool; a subscriber whose queue
+ * fills up is disconnected instead of slowing down the committing threads.
+ * Sequences are per instance and restart with the application.
+ */
+@Component
+public class CatalogChangeStream {
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogChangeStream.class);
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${dscatalog.changes.buffer-size:10000}")
+	private int bufferSize;
+
+	@Value("${dscatalog.changes.subscriber-buffer:1000}")
+	private int subscriberBuffer;
+
+	@Value("${dscatalog.changes.timeout:30m}")
+	private Duration timeout;
+
+	@Value("${dscatalog.changes.heartbeat:15s}")
+	private Duration heartbeat;
+
+	@Value("${dscatalog.changes.sender-threads:4}")
+	private int senderThreads;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	// lock e nao monitor: publish roda na thread da requisicao, que pode ser virtual
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// escritos com lock; sequence tambem e lida sem lock
+	private CatalogChangeDTO[] ring;
+	private volatile long sequence;
+
+	private ExecutorService sender;
+	private ScheduledExecutorService heartbeats;
+	private Counter evictions;
+
+	@PostConstruct
+	void init() {
+		ring = new CatalogChangeDTO[bufferSize];
+		sender = Executors.newFixedThreadPool(senderThreads, daemon("catalog-changes-sender-"));
+		heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("catalog-changes-heartbeat-"));
+		long millis = heartbeat.toMillis();
+		heartbeats.scheduleWithFixedDelay(this::heartbeat, millis, millis, TimeUnit.MILLISECONDS);
+
+		meterRegistry.gauge("dscatalog.changes.subscribers", subscribers, Set::size);
+		evictions = meterRegistry.counter("dscatalog.changes.evicted");
+	}
+
+	@PreDestroy
+	void shutdown() {
+		heartbeats.shutdownNow();
+		subscribers.forEach(s -> s.emitter.complete());
+		sender.shutdownNow();
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onChange(CatalogChangeEvent event) {
+		publish(event);
+	}
+
+	/**
+	 * Numbers, buffers and fans out one change. Returns its sequence.
+	 */
+	public long publish(CatalogChangeEvent event) {
+		lock.lock();
+		try {
+			CatalogChangeDTO dto = new CatalogChangeDTO(++sequence, event);
+			ring[(int) (sequence % ring.length)] = dto;
+			for (Subscriber subscriber : subscribers) {
+				subscriber.offer(dto);
+			}
+			return dto.getSequence();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// com o lock: nenhum assinante recebe o heartbeat N antes da mudanca N
+	private void heartbeat() {
+		lock.lock();
+		try {
+			CatalogChangeDTO dto = CatalogChangeDTO.heartbeat(sequence);
+			subscribers.forEach(s -> s.offer(dto));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sequence of the last published change. It moves after a change commits and
+	 * before the caches are evicted for it, so a reader that takes it before a
+	 * load and finds it moved after caching the result must drop what it cached.
+	 */
+	public long lastSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Opens a stream of changes after lastSequence (only new changes when null),
+	 * as SSE or as newline-delimited JSON.
+	 */
+	public ResponseBodyEmitter subscribe(Long lastSequence, boolean sse) {
+		ResponseBodyEmitter emitter = sse ? new SseEmitter(timeout.toMillis()) : new ResponseBodyEmitter(timeout.toMillis());
+		Subscriber subscriber = new Subscriber(emitter, sse);
+		emitter.onCompletion(subscriber::close);
+		emitter.onTimeout(subscriber::close);
+		emitter.onError(e -> subscriber.close());
+
+		// com o lock, nenhum evento e perdido nem repetido entre o replay e os novos
+		lock.lock();
+		try {
+			if (lastSequence != null) {
+				replay(subscriber, lastSequence);
+			}
+			subscribers.add(subscriber);
+		} finally {
+			lock.unlock();
+		}
+		subscriber.schedule();
+		return emitter;
+	}
+
+	private void replay(Subscriber subscriber, long lastSequence) {
+		long oldest = Math.max(1, sequence - ring.length + 1);
+		if (lastSequence > sequence || lastSequence < oldest - 1) {
+			subscriber.replay(CatalogChangeDTO.reset(sequence));
+			return;
+		}
+		for (long seq = lastSequence + 1; seq <= sequence; seq++) {
+			subscriber.replay(ring[(int) (seq % ring.length)]);
+		}
+	}
+
+	private static ThreadFactory daemon(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private class Subscriber implements Runnable {
+
+		final ResponseBodyEmitter emitter;
+		final boolean sse;
+
+		// protegidos por queueLock
+		private final ReentrantLock queueLock = new ReentrantLock();
+		private final ArrayDeque<CatalogChangeDTO> queue = new ArrayDeque<>();
+		private int replayPending;
+		private boolean scheduled;
+		private boolean closed;
+
+		Subscriber(ResponseBodyEmitter emitter, boolean sse) {
+			this.emitter = emitter;
+			this.sse = sse;
+		}
+
+		// o replay nao conta para o limite da fila
+		void replay(CatalogChangeDTO dto) {
+			queueLock.lock();
+			try {
+				queue.add(dto);
+				replayPending++;
+			} finally {
+				queueLock.unlock();
+			}
+		}
+
+		void offer(CatalogChangeDTO message) {
+			boolean full;
+			queueLock.lock();
+			try {
+				if (closed) {
+					return;
+				}
+				full = queue.size() >= subscriberBuffer + replayPending;
+				if (full) {
+					closed = true;
+					queue.clear();
+				} else {
+					queue.add(message);
+				}
+			} finally {
+				queueLock.unlock();
+			}
+			if (full) {
+				evict();
+			} else {
+				schedule();
+			}
+		}
+
+		void schedule() {
+			queueLock.lock();
+			try {
+				if (scheduled || closed || queue.isEmpty()) {
+					return;
+				}
+				scheduled = true;
+			} finally {
+				queueLock.unlock();
+			}
+			sender.execute(this);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				CatalogChangeDTO message;
+				queueLock.lock();
+				try {
+					message = closed ? null : queue.poll();
+					if (message == null) {
+						scheduled = false;
+						return;
+					}
+					if (replayPending > 0) {
+						replayPending--;
+					}
+				} finally {
+					queueLock.unlock();
+				}
+				try {
+					send(message);
+				} catch (IOException | IllegalStateException e) {
+					close();
+					return;
+				}
+			}
+		}
+
+		private void send(CatalogChangeDTO dto) throws IOException {
+			if (sse && CatalogChangeDTO.HEARTBEAT.equals(dto.getType())) {
+				// comentario SSE: nao mexe no Last-Event-ID do cliente
+				((SseEmitter) emitter).send(SseEmitter.event().comment("heartbeat"));
+				return;
+			}
+			if (sse) {
+				((SseEmitter) emitter).send(SseEmitter.event().id(String.valueOf(dto.getSequence()))
+						.name(dto.getType().toLowerCase(Locale.ROOT)).data(dto, MediaType.APPLICATION_JSON));
+			} else {
+				emitter.send(dto, MediaType.APPLICATION_JSON);
+				emitter.send("\n", MediaType.TEXT_PLAIN);
+			}
+		}
+
+		void close() {
+			queueLock.lock();
+			try {
+				closed = true;
+				queue.clear();
+			} finally {
+				queueLock.unlock();
+			}
+			subscribers.remove(this);
+		}
+
+		// consumidor lento: desconecta; ele volta com o ultimo id recebido
+		private void evict() {
+			subscribers.remove(this);
+			evictions.increment();
+			logger.info("Change stream subscriber disconnected: {} changes pending", subscriberBuffer);
+			// complete() pode esperar um send bloqueado, entao nao roda na thread do commit
+			sender.execute(emitter::complete);
+		}
+	}
+
+}
@@ -0,0 +1,15 @@
+package pt.amane.dscatalog.services.exceptions;
+
+public class BadRequestException extends ServiceException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BadRequestException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public BadRequestException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,18 @@
+package pt.amane.dscatalog.services.exceptions;
+
+public class ConflictException extends ServiceException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Long currentVersion;
+
+	public ConflictException(String message, Long currentVersion) {
+		super(message);
+		this.currentVersion = currentVersion;
+	}
+
+	public Long getCurrentVersion() {
+		return currentVersion;
+	}
+
+}
@@ -1,6 +1,6 @@
 package pt.amane.dscatalog.services.exceptions;
 
-public class DataBaseIntegrityViolationException extends RuntimeException {
+public class DataBaseIntegrityViolationException extends ServiceException {
 
 	private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,22 @@
+package pt.amane.dscatalog.services.exceptions;
+
+/**
+ * Validation failure found by the service (e.g. a unique index), answered like
+ * the bean validation errors: 422 with the field in the error list.
+ */
+public class FieldValidationException extends ServiceException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String fieldName;
+
+	public FieldValidationException(String fieldName, String message, Throwable cause) {
+		super(message, cause);
+		this.fieldName = fieldName;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+}
@@ -1,6 +1,6 @@
 package pt.amane.dscatalog.services.exceptions;
 
-public class ForbiddenException extends RuntimeException {
+public class ForbiddenException extends ServiceException {
 
 	private static final long serialVersionUID = 1L;
 
@@ -1,17 +1,44 @@
 package pt.amane.dscatalog.services.exceptions;
 
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends ServiceException {
 
 	private static final long serialVersionUID = 1L;
 
+	private final String type;
+	private final Object id;
+
 	public ResourceNotFoundException(String message, Throwable cause) {
 		super(message, cause);
+		type = null;
+		id = null;
 	}
 
 	public ResourceNotFoundException(String message) {
-		super(message);
+		this(message, null);
+	}
+
+	// a mensagem so e montada se alguem pedir (o handler, uma vez por resposta)
+	public ResourceNotFoundException(String type, Object id) {
+		super(null);
+		this.type = type;
+		this.id = id;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public Object getId() {
+		return id;
+	}
+
+	@Override
+	public String getMessage() {
+		String message = super.getMessage();
+		if (message == null && type != null) {
+			return "Id not found! Id: " + id + ", Type: " + type;
+		}
+		return message;
 	}
-	
-	
 
 }
@@ -0,0 +1,32 @@
+package pt.amane.dscatalog.services.exceptions;
+
+/**
+ * Base of the exceptions the services throw for an expected outcome (not
+ * found, forbidden, conflict...). They become an HTTP error in
+ * ResourceExceptionHandler and are never logged, so by default they skip the
+ * stack trace, which is most of the cost of creating an exception.
+ * dscatalog.exceptions.stack-traces=true turns traces back on for debugging.
+ */
+public abstract class ServiceException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private static volatile boolean stackTraces = Boolean.getBoolean("dscatalog.exceptions.stack-traces");
+
+	protected ServiceException(String message) {
+		this(message, null);
+	}
+
+	protected ServiceException(String message, Throwable cause) {
+		super(message, cause, true, stackTraces);
+	}
+
+	public static boolean isStackTraces() {
+		return stackTraces;
+	}
+
+	public static void setStackTraces(boolean enabled) {
+		stackTraces = enabled;
+	}
+
+}
@@ -1,6 +1,6 @@
 package pt.amane.dscatalog.services.exceptions;
 
-public class UnAuthorizedException extends RuntimeException {
+public class UnAuthorizedException extends ServiceException {
 
 	private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,61 @@
+package pt.amane.dscatalog.services.outbox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import pt.amane.dscatalog.entities.OutboxEvent;
+
+/**
+ * Appends events as NDJSON to a local file (dscatalog.outbox.sink=file). Each
+ * batch is forced to disk before the dispatcher deletes it from the outbox.
+ */
+@Component
+@ConditionalOnExpression("${dscatalog.outbox.enabled:false} and '${dscatalog.outbox.sink:memory}' == 'file'")
+public class FileOutboxSink implements OutboxSink {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${dscatalog.outbox.file.path:outbox.ndjson}")
+	private String path;
+
+	@Override
+	public synchronized void deliver(List<OutboxEvent> events) throws IOException {
+		StringBuilder lines = new StringBuilder();
+		for (OutboxEvent event : events) {
+			ObjectNode node = objectMapper.createObjectNode();
+			node.put("id", event.getId());
+			node.put("aggregateType", event.getAggregateType());
+			node.put("aggregateId", event.getAggregateId());
+			node.put("eventType", event.getEventType());
+			node.put("createdAt", String.valueOf(event.getCreatedAt()));
+			node.set("payload", objectMapper.readTree(event.getPayload()));
+			lines.append(objectMapper.writeValueAsString(node)).append('\n');
+		}
+
+		Path file = Paths.get(path);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package pt.amane.dscatalog.services.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import pt.amane.dscatalog.entities.OutboxEvent;
+
+/**
+ * Keeps delivered events in memory (dscatalog.outbox.sink=memory, the
+ * default). Meant for tests and local runs.
+ */
+@Component
+@ConditionalOnExpression("${dscatalog.outbox.enabled:false} and '${dscatalog.outbox.sink:memory}' == 'memory'")
+public class InMemoryOutboxSink implements OutboxSink {
+
+	private final List<OutboxEvent> delivered = new ArrayList<>();
+
+	@Override
+	public synchronized void deliver(List<OutboxEvent> events) {
+		delivered.addAll(events);
+	}
+
+	public synchronized List<OutboxEvent> getDelivered() {
+		return new ArrayList<>(delivered);
+	}
+
+	public synchronized void clear() {
+		delivered.clear();
+	}
+
+}
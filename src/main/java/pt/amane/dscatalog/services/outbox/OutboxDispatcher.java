@@ -0,0 +1,159 @@
+package pt.amane.dscatalog.services.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import pt.amane.dscatalog.entities.OutboxEvent;
+import pt.amane.dscatalog.repositories.OutboxEventRepository;
+
+/**
+ * Polls the outbox and hands batches to every OutboxSink. A batch is locked
+ * (SKIP LOCKED on Postgres), delivered and deleted in one transaction, so with
+ * parallelism > 1 the workers take different batches; ordering is then only
+ * guaranteed within a batch.
+ */
+@Component
+@ConditionalOnProperty(name = "dscatalog.outbox.enabled", havingValue = "true")
+public class OutboxDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+	@Autowired
+	private OutboxEventRepository repository;
+
+	@Autowired
+	private List<OutboxSink> sinks;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${dscatalog.outbox.batch-size:100}")
+	private int batchSize;
+
+	@Value("${dscatalog.outbox.parallelism:1}")
+	private int parallelism;
+
+	private final AtomicLong lagMillis = new AtomicLong();
+
+	private ExecutorService workers;
+	private Counter dispatched;
+	private Counter failures;
+	private Timer batchTimer;
+
+	@PostConstruct
+	void init() {
+		AtomicInteger count = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r, "outbox-dispatcher-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// idade do evento mais antigo ainda nao entregue
+		meterRegistry.gauge("dscatalog.outbox.lag.seconds", lagMillis, lag -> lag.get() / 1000.0);
+		dispatched = meterRegistry.counter("dscatalog.outbox.dispatched");
+		failures = meterRegistry.counter("dscatalog.outbox.failures");
+		batchTimer = meterRegistry.timer("dscatalog.outbox.batch");
+	}
+
+	@PreDestroy
+	void shutdown() {
+		workers.shutdownNow();
+	}
+
+	@Scheduled(fixedDelayString = "${dscatalog.outbox.poll-interval:1000}")
+	public void poll() {
+		List<Future<Integer>> results = new ArrayList<>(parallelism);
+		for (int i = 0; i < parallelism; i++) {
+			results.add(workers.submit(this::drain));
+		}
+		for (Future<Integer> result : results) {
+			try {
+				result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				logger.warn("Outbox worker failed: {}", e.getCause().getMessage());
+			}
+		}
+		updateLag();
+	}
+
+	// lotes seguidos ate a fila esvaziar ou um envio falhar
+	private int drain() {
+		int total = 0;
+		int count;
+		do {
+			try {
+				count = dispatchBatch();
+			} catch (RuntimeException e) {
+				failures.increment();
+				logger.warn("Outbox batch not delivered, will retry: {}", e.getMessage());
+				break;
+			}
+			total += count;
+		} while (count == batchSize);
+		return total;
+	}
+
+	/**
+	 * Locks, delivers and deletes one batch. Returns the number of events
+	 * dispatched (0 when the outbox is empty or fully locked by other workers).
+	 */
+	public int dispatchBatch() {
+		Integer count = batchTimer.record(() -> transactionTemplate.execute(status -> {
+			List<OutboxEvent> batch = repository.findBatchForDispatch(PageRequest.of(0, batchSize));
+			if (batch.isEmpty()) {
+				return 0;
+			}
+			for (OutboxSink sink : sinks) {
+				try {
+					sink.deliver(batch);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			repository.deleteInBatch(batch);
+			return batch.size();
+		}));
+		dispatched.increment(count);
+		return count;
+	}
+
+	private void updateLag() {
+		OutboxEvent oldest = repository.findFirstByOrderByIdAsc();
+		lagMillis.set(oldest == null || oldest.getCreatedAt() == null ? 0
+				: Math.max(0, Duration.between(oldest.getCreatedAt(), Instant.now()).toMillis()));
+	}
+
+}
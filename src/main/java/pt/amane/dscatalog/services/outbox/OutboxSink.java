@@ -0,0 +1,17 @@
+package pt.amane.dscatalog.services.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+import pt.amane.dscatalog.entities.OutboxEvent;
+
+/**
+ * Destination of outbox events. Called inside the dispatcher transaction: if
+ * deliver throws, the batch stays in the outbox and is retried on the next
+ * poll, so sinks must tolerate duplicates (at-least-once).
+ */
+public interface OutboxSink {
+
+	void deliver(List<OutboxEvent> events) throws IOException;
+
+}
@@ -0,0 +1,42 @@
+package pt.amane.dscatalog.services.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pt.amane.dscatalog.entities.OutboxEvent;
+import pt.amane.dscatalog.repositories.OutboxEventRepository;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+/**
+ * Records every catalog change in the outbox, inside the transaction that made
+ * the change: both are committed or rolled back together.
+ */
+@Component
+@ConditionalOnProperty(name = "dscatalog.outbox.enabled", havingValue = "true")
+public class OutboxWriter {
+
+	@Autowired
+	private OutboxEventRepository repository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@EventListener
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void onChange(CatalogChangeEvent event) {
+		try {
+			repository.save(new OutboxEvent(event.getEntity(), event.getId(), event.getType().name(),
+					objectMapper.writeValueAsString(event)));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize catalog change event", e);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package pt.amane.dscatalog.services.validation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import pt.amane.dscatalog.entities.User;
+
+/**
+ * Bloom filter of registered emails. mightContain() == false means no user had
+ * the email when it was added here, so the validators skip the query; a true
+ * answer (or any answer before the filter is loaded) goes to the database.
+ * Emails registered through another instance or straight in the database are
+ * missing until restart - the unique index on tb_user.email stays the final
+ * check.
+ */
+@Component
+public class EmailBloomFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+	private final AtomicLong insertions = new AtomicLong();
+
+	private volatile boolean loaded;
+
+	@Autowired
+	public EmailBloomFilter(@Value("${dscatalog.users.email-filter.expected-insertions:1000000}") long expected,
+			@Value("${dscatalog.users.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		// m = -n ln p / (ln 2)^2, k = m/n ln 2
+		long m = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		bitCount = Math.max(64, (m + 63) / 64 * 64);
+		hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+		bits = new AtomicLongArray((int) (bitCount / 64));
+	}
+
+	// depois dos CommandLineRunner (seed, gerador), que tambem inserem usuarios
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		long start = System.currentTimeMillis();
+		jdbcTemplate.query("SELECT email FROM tb_user", rs -> {
+			put(rs.getString(1));
+		});
+		loaded = true;
+		logger.info("Email filter loaded with {} emails in {} ms", insertions.get(), System.currentTimeMillis() - start);
+	}
+
+	public void put(String email) {
+		if (email == null) {
+			return;
+		}
+		long hash = hash(User.normalizeEmail(email));
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+			int index = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long word;
+			do {
+				word = bits.get(index);
+			} while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask));
+		}
+		insertions.incrementAndGet();
+	}
+
+	/**
+	 * False only when the email was certainly never added.
+	 */
+	public boolean mightContain(String email) {
+		if (!loaded || email == null) {
+			return true;
+		}
+		long hash = hash(User.normalizeEmail(email));
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// FNV-1a 64 bits com mistura final (murmur3 fmix64)
+	private static long hash(String email) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
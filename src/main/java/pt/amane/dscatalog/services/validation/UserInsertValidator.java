@@ -17,6 +17,9 @@ public class UserInsertValidator implements ConstraintValidator<UserInsertValid,
 	
 	@Autowired
 	private UserRepository repository;
+
+	@Autowired
+	private EmailBloomFilter emailFilter;
 	
 	@Override
 	public void initialize(UserInsertValid ann) {
@@ -29,9 +32,9 @@ public class UserInsertValidator implements ConstraintValidator<UserInsertValid,
 		
 		// Coloque aqui seus testes de validação, acrescentando objetos FieldMessage à lista
 		
-		User user = repository.findByEmail(dto.getEmail());
-		
-		if(user != null) {
+		// o filtro descarta sem consulta os emails certamente novos
+		String email = User.normalizeEmail(dto.getEmail());
+		if (emailFilter.mightContain(email) && repository.existsByEmail(email)) {
 			list.add(new FieldMessage("email", "This email exist in data base!"));
 		}
 		
@@ -3,6 +3,7 @@ package pt.amane.dscatalog.services.validation;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.ConstraintValidator;
@@ -23,6 +24,9 @@ public class UserUpdateValidator implements ConstraintValidator<UserUpdateValid,
 	
 	@Autowired
 	private UserRepository repository;
+
+	@Autowired
+	private EmailBloomFilter emailFilter;
 	
 	@Override
 	public void initialize(UserUpdateValid ann) {
@@ -40,9 +44,10 @@ public class UserUpdateValidator implements ConstraintValidator<UserUpdateValid,
 		
 		// Coloque aqui seus testes de validação, acrescentando objetos FieldMessage à lista
 		
-		User user = repository.findByEmail(dto.getEmail());
+		String email = User.normalizeEmail(dto.getEmail());
+		Optional<Long> ownerId = emailFilter.mightContain(email) ? repository.findIdByEmail(email) : Optional.empty();
 		
-		if(user != null && userId != user.getId()) {
+		if(ownerId.isPresent() && userId != ownerId.get()) {
 			list.add(new FieldMessage("email", "This email exist in data base!"));
 		}
 		
@@ -0,0 +1,16 @@
+-- Delta sync (updatedSince) em bases ja existentes (dev usa ddl-auto=none)
+ALTER TABLE tb_product ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE tb_product ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+UPDATE tb_category SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+ALTER TABLE tb_category ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_product_updated_at ON tb_product (updated_at);
+CREATE INDEX IF NOT EXISTS idx_category_updated_at ON tb_category (updated_at);
+
+CREATE TABLE IF NOT EXISTS tb_tombstone (
+  id BIGSERIAL PRIMARY KEY,
+  entity_type VARCHAR(255),
+  entity_id BIGINT,
+  deleted_at TIMESTAMP WITHOUT TIME ZONE
+);
+CREATE INDEX IF NOT EXISTS idx_tombstone_type_deleted_at ON tb_tombstone (entity_type, deleted_at);
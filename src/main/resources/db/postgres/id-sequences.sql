@@ -0,0 +1,19 @@
+-- Sequencias dos ids (dev usa ddl-auto=none). O Hibernate usa pooled-lo com
+-- allocationSize 50: cada nextval reserva 50 ids, por isso INCREMENT BY 50
+CREATE SEQUENCE IF NOT EXISTS seq_product INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_category INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_user INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_role INCREMENT BY 50;
+
+-- comecam depois dos ids existentes
+SELECT setval('seq_product', COALESCE((SELECT MAX(id) FROM tb_product), 0) + 1, false);
+SELECT setval('seq_category', COALESCE((SELECT MAX(id) FROM tb_category), 0) + 1, false);
+SELECT setval('seq_user', COALESCE((SELECT MAX(id) FROM tb_user), 0) + 1, false);
+SELECT setval('seq_role', COALESCE((SELECT MAX(id) FROM tb_role), 0) + 1, false);
+
+-- a aplicacao passa a mandar o id; sem o DEFAULT das colunas BIGSERIAL um
+-- insert por fora sem id falha, em vez de colidir com os blocos da aplicacao
+ALTER TABLE tb_product ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE tb_category ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE tb_user ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE tb_role ALTER COLUMN id DROP DEFAULT;
@@ -0,0 +1,5 @@
+-- Coluna de versao (@Version) para o lock otimista em bases ja existentes (dev usa ddl-auto=none)
+-- as linhas existentes comecam na versao 0, que e o ETag "0" devolvido pela API
+ALTER TABLE tb_product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tb_category ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tb_user ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Outbox de eventos do catalogo (OUTBOX_ENABLED=true) em bases ja existentes (dev usa ddl-auto=none)
+CREATE TABLE IF NOT EXISTS tb_outbox_event (
+  id BIGSERIAL PRIMARY KEY,
+  aggregate_type VARCHAR(255),
+  aggregate_id BIGINT,
+  event_type VARCHAR(255),
+  payload TEXT,
+  created_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- eventos entregues sao apagados, entao toda linha da tabela esta pendente e o indice
+-- das pendentes e a chave primaria: o dispatcher le ORDER BY id LIMIT n FOR UPDATE SKIP
+-- LOCKED e o lag le a menor id. Fila com muito DELETE: vacuum mais cedo que o padrao
+ALTER TABLE tb_outbox_event SET (autovacuum_vacuum_scale_factor = 0.01, autovacuum_vacuum_threshold = 1000);
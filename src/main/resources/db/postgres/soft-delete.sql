@@ -0,0 +1,16 @@
+-- Exclusao logica de produtos e categorias (dev usa ddl-auto=none)
+ALTER TABLE tb_product ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE tb_category ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP WITHOUT TIME ZONE;
+
+-- indices parciais: as consultas JPA sempre filtram deleted_at IS NULL, entao
+-- so as linhas ativas precisam estar indexadas
+DROP INDEX IF EXISTS idx_product_updated_at;
+DROP INDEX IF EXISTS idx_category_updated_at;
+CREATE INDEX IF NOT EXISTS idx_product_updated_at ON tb_product (updated_at, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_category_updated_at ON tb_category (updated_at, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_product_name_active ON tb_product (name, id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_category_name_active ON tb_category (name, id) WHERE deleted_at IS NULL;
+
+-- o purge so olha as linhas ja excluidas
+CREATE INDEX IF NOT EXISTS idx_product_deleted_at ON tb_product (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_category_deleted_at ON tb_category (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,31 @@
+-- Emails normalizados (trim + minusculas) com indice unico (dev usa ddl-auto=none)
+
+-- antes de rodar, conferir se ha emails que so diferem em maiusculas/espacos;
+-- esses usuarios precisam ser unificados a mao ou o indice unico falha:
+-- SELECT LOWER(TRIM(email)), COUNT(*) FROM tb_user GROUP BY 1 HAVING COUNT(*) > 1;
+UPDATE tb_user SET email = LOWER(TRIM(email)) WHERE email <> LOWER(TRIM(email));
+
+-- a aplicacao normaliza antes de gravar e de buscar, entao a busca e email = ?
+-- direto no indice unico; o indice funcional tambem cobre LOWER(email) = ? de
+-- relatorios e scripts que nao normalizam
+ALTER TABLE tb_user DROP CONSTRAINT IF EXISTS uk_user_email;
+
+-- o antigo @Column(unique = true) deixou uma constraint de nome gerado pelo
+-- Hibernate (uk_...) na mesma coluna; sem remove-la cada INSERT/UPDATE mantem
+-- dois indices unicos iguais
+DO $$
+DECLARE
+	old_constraint TEXT;
+BEGIN
+	FOR old_constraint IN
+		SELECT con.conname FROM pg_constraint con
+		JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = con.conkey[1]
+		WHERE con.conrelid = 'tb_user'::regclass AND con.contype = 'u'
+			AND array_length(con.conkey, 1) = 1 AND att.attname = 'email'
+	LOOP
+		EXECUTE format('ALTER TABLE tb_user DROP CONSTRAINT %I', old_constraint);
+	END LOOP;
+END $$;
+
+ALTER TABLE tb_user ADD CONSTRAINT uk_user_email UNIQUE (email);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_user_email_lower ON tb_user (LOWER(email));
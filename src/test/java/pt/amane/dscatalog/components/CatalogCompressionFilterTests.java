@@ -0,0 +1,170 @@
+package pt.amane.dscatalog.components;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import com.github.luben.zstd.Zstd;
+
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.services.events.CatalogChangeStream;
+
+class CatalogCompressionFilterTests {
+
+	private static final String BODY = "{\"content\":[" + "{\"name\":\"The Lord of the Rings\"},".repeat(40) + "{}]}";
+
+	private CatalogCompressionFilter filter;
+	private CacheManager cacheManager;
+	private AtomicLong sequence;
+	private AtomicInteger executions;
+	private Runnable duringRender;
+	private FilterChain chain;
+
+	@BeforeEach
+	void setUp() {
+		cacheManager = new ConcurrentMapCacheManager(CacheConfig.RESPONSES);
+		sequence = new AtomicLong();
+		CatalogChangeStream changeStream = Mockito.mock(CatalogChangeStream.class);
+		Mockito.when(changeStream.lastSequence()).thenAnswer(invocation -> sequence.get());
+
+		filter = new CatalogCompressionFilter();
+		ReflectionTestUtils.setField(filter, "cacheManager", cacheManager);
+		ReflectionTestUtils.setField(filter, "changeStream", changeStream);
+		ReflectionTestUtils.setField(filter, "enabled", true);
+		ReflectionTestUtils.setField(filter, "minSize", 512);
+		ReflectionTestUtils.setField(filter, "zstdLevel", 3);
+
+		executions = new AtomicInteger();
+		duringRender = () -> {
+		};
+		chain = (request, response) -> {
+			executions.incrementAndGet();
+			duringRender.run();
+			HttpServletResponse http = (HttpServletResponse) response;
+			http.setStatus(HttpServletResponse.SC_OK);
+			http.setContentType("application/json");
+			http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	@Test
+	void negotiateShouldReturnGzipWhenGzipIsAccepted() {
+		Assertions.assertEquals("gzip", CatalogCompressionFilter.negotiate("gzip, deflate, br"));
+		Assertions.assertEquals("gzip", CatalogCompressionFilter.negotiate("*"));
+		Assertions.assertEquals("gzip", CatalogCompressionFilter.negotiate("zstd;q=0, gzip"));
+	}
+
+	@Test
+	void negotiateShouldReturnNullWhenNoSupportedEncodingIsAccepted() {
+		Assertions.assertNull(CatalogCompressionFilter.negotiate(null));
+		Assertions.assertNull(CatalogCompressionFilter.negotiate("identity"));
+		Assertions.assertNull(CatalogCompressionFilter.negotiate("gzip;q=0, br"));
+	}
+
+	@Test
+	void negotiateShouldReturnZstdWhenAccepted() {
+		// zstd-jni traz a biblioteca nativa das plataformas suportadas
+		Assumptions.assumeTrue(CatalogCompressionFilter.ZSTD_AVAILABLE);
+
+		Assertions.assertEquals("zstd", CatalogCompressionFilter.negotiate("gzip;q=0.8, zstd"));
+		Assertions.assertEquals("zstd", CatalogCompressionFilter.negotiate("zstd"));
+	}
+
+	@Test
+	void repeatedRequestShouldBeReplayedFromCache() throws Exception {
+
+		MockHttpServletResponse first = get("gzip");
+		MockHttpServletResponse second = get("gzip");
+
+		Assertions.assertEquals(1, executions.get());
+		Assertions.assertEquals("gzip", second.getHeader(HttpHeaders.CONTENT_ENCODING));
+		Assertions.assertEquals("application/json", second.getContentType());
+		Assertions.assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+		Assertions.assertEquals(BODY, gunzip(second.getContentAsByteArray()));
+	}
+
+	@Test
+	void zstdResponseShouldDecompressToBody() throws Exception {
+		Assumptions.assumeTrue(CatalogCompressionFilter.ZSTD_AVAILABLE);
+
+		MockHttpServletResponse response = get("zstd");
+
+		Assertions.assertEquals("zstd", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		byte[] body = Zstd.decompress(response.getContentAsByteArray(), BODY.length());
+		Assertions.assertEquals(BODY, new String(body, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void catalogWriteShouldEvictCachedResponse() throws Exception {
+
+		get("gzip");
+		// o que um update faz depois do commit: evento numerado e cache limpo
+		sequence.incrementAndGet();
+		cacheManager.getCache(CacheConfig.RESPONSES).clear();
+		get("gzip");
+
+		Assertions.assertEquals(2, executions.get());
+	}
+
+	@Test
+	void responseRenderedWhileWriteCommittedShouldNotBeReplayed() throws Exception {
+
+		// a escrita confirma (e limpa o cache) enquanto o controller ainda monta a resposta
+		duringRender = () -> {
+			sequence.incrementAndGet();
+			cacheManager.getCache(CacheConfig.RESPONSES).clear();
+		};
+		get("gzip");
+		duringRender = () -> {
+		};
+		get("gzip");
+		get("gzip");
+
+		Assertions.assertEquals(2, executions.get());
+	}
+
+	@Test
+	void cachedResponseShouldNotBeReplayedAfterSequenceMoved() throws Exception {
+
+		get("gzip");
+		// evento de outra escrita sem o cache ter sido limpo ainda
+		sequence.incrementAndGet();
+		get("gzip");
+
+		Assertions.assertEquals(2, executions.get());
+	}
+
+	private MockHttpServletResponse get(String acceptEncoding) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+		request.setQueryString("page=0");
+		request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	private static String gunzip(byte[] bytes) throws Exception {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+}
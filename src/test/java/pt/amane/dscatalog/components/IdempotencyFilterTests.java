@@ -0,0 +1,237 @@
+package pt.amane.dscatalog.components;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+
+class IdempotencyFilterTests {
+
+	private IdempotencyFilter filter;
+	private AtomicInteger executions;
+	private CountDownLatch release;
+	private FilterChain chain;
+
+	@BeforeEach
+	void setUp() {
+		filter = new IdempotencyFilter();
+		ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+		ReflectionTestUtils.setField(filter, "enabled", true);
+		ReflectionTestUtils.setField(filter, "ttl", Duration.ofMinutes(1));
+		ReflectionTestUtils.setField(filter, "maxEntries", 100L);
+		ReflectionTestUtils.setField(filter, "waitTimeout", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(filter, "maxKeyLength", 255);
+		filter.init();
+
+		executions = new AtomicInteger();
+		release = new CountDownLatch(0);
+		chain = (request, response) -> {
+			String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+			int id = executions.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			HttpServletResponse http = (HttpServletResponse) response;
+			http.setStatus(201);
+			http.setHeader("Location", "/products/" + id);
+			http.setContentType("application/json");
+			http.getOutputStream().write(("{\"id\":" + id + ",\"echo\":" + body + "}").getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	@Test
+	void retryShouldReplayStoredResponseWithoutRunningAgain() throws Exception {
+		MockHttpServletResponse first = post("key-1", "{\"name\":\"PC\"}");
+		MockHttpServletResponse retry = post("key-1", "{\"name\":\"PC\"}");
+
+		Assertions.assertEquals(1, executions.get());
+		Assertions.assertEquals(201, retry.getStatus());
+		Assertions.assertEquals(first.getContentAsString(), retry.getContentAsString());
+		Assertions.assertEquals("/products/1", retry.getHeader("Location"));
+		Assertions.assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED));
+		Assertions.assertNull(first.getHeader(IdempotencyFilter.REPLAYED));
+	}
+
+	@Test
+	void differentKeysShouldRunSeparately() throws Exception {
+		post("key-1", "{}");
+		post("key-2", "{}");
+
+		Assertions.assertEquals(2, executions.get());
+	}
+
+	@Test
+	void reusedKeyWithDifferentBodyShouldReturnUnprocessableEntity() throws Exception {
+		post("key-1", "{\"name\":\"PC\"}");
+		MockHttpServletResponse retry = post("key-1", "{\"name\":\"TV\"}");
+
+		Assertions.assertEquals(1, executions.get());
+		Assertions.assertEquals(422, retry.getStatus());
+	}
+
+	@Test
+	void concurrentDuplicateShouldWaitForFirstExecution() throws Exception {
+		release = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Future<MockHttpServletResponse> first = pool.submit(() -> post("key-1", "{}"));
+			while (executions.get() == 0) {
+				Thread.sleep(5);
+			}
+			Future<MockHttpServletResponse> duplicate = pool.submit(() -> post("key-1", "{}"));
+			Thread.sleep(50);
+			release.countDown();
+
+			Assertions.assertEquals(first.get(5, TimeUnit.SECONDS).getContentAsString(),
+					duplicate.get(5, TimeUnit.SECONDS).getContentAsString());
+			Assertions.assertEquals(1, executions.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void requestWithoutKeyShouldNotBeStored() throws Exception {
+		post(null, "{}");
+		post(null, "{}");
+
+		Assertions.assertEquals(2, executions.get());
+	}
+
+	@Test
+	void runningExecutionShouldNotBeEvictedWhenStoreIsFull() throws Exception {
+		ReflectionTestUtils.setField(filter, "maxEntries", 1L);
+		filter.init();
+		CountDownLatch slow = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		FilterChain fast = chain;
+		// so a primeira execucao fica presa
+		chain = (request, response) -> {
+			if (started.getCount() > 0) {
+				started.countDown();
+				try {
+					slow.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			fast.doFilter(request, response);
+		};
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Future<MockHttpServletResponse> first = pool.submit(() -> post("key-1", "{}"));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			// tres respostas guardadas num limite de uma: as antigas saem, a execucao em andamento fica
+			post("key-2", "{}");
+			post("key-3", "{}");
+			post("key-4", "{}");
+			((Cache<?, ?>) ReflectionTestUtils.getField(filter, "executions")).cleanUp();
+
+			Future<MockHttpServletResponse> duplicate = pool.submit(() -> post("key-1", "{}"));
+			slow.countDown();
+
+			Assertions.assertEquals(first.get(5, TimeUnit.SECONDS).getContentAsString(),
+					duplicate.get(5, TimeUnit.SECONDS).getContentAsString());
+			Assertions.assertEquals(4, executions.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void interruptedWaitShouldReturnServiceUnavailable() throws Exception {
+		release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		FilterChain blocking = chain;
+		chain = (request, response) -> {
+			started.countDown();
+			blocking.doFilter(request, response);
+		};
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<MockHttpServletResponse> first = pool.submit(() -> post("key-1", "{}"));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			Thread.currentThread().interrupt();
+			MockHttpServletResponse duplicate = post("key-1", "{}");
+
+			Assertions.assertTrue(Thread.interrupted());
+			Assertions.assertEquals(503, duplicate.getStatus());
+			release.countDown();
+			Assertions.assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatus());
+			Assertions.assertEquals(1, executions.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void cachedBodyShouldNotifyReadListener() throws Exception {
+		List<String> calls = new ArrayList<>();
+		chain = (request, response) -> {
+			ServletInputStream in = request.getInputStream();
+			in.setReadListener(new ReadListener() {
+
+				@Override
+				public void onDataAvailable() throws IOException {
+					calls.add("data:" + StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+				}
+
+				@Override
+				public void onAllDataRead() {
+					calls.add("done");
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					calls.add("error");
+				}
+			});
+			((HttpServletResponse) response).setStatus(201);
+		};
+
+		post("key-1", "{\"name\":\"PC\"}");
+
+		Assertions.assertEquals(List.of("data:{\"name\":\"PC\"}", "done"), calls);
+	}
+
+	private MockHttpServletResponse post(String key, String body) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/products");
+		if (key != null) {
+			request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+		}
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+}
@@ -0,0 +1,89 @@
+package pt.amane.dscatalog.components;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import pt.amane.dscatalog.entities.Role;
+import pt.amane.dscatalog.entities.User;
+import pt.amane.dscatalog.repositories.RoleRepository;
+
+@ExtendWith(SpringExtension.class)
+class RoleRegistryTests {
+
+	@InjectMocks
+	private RoleRegistry registry;
+
+	@Mock
+	private RoleRepository repository;
+
+	// os mesmos perfis do import.sql: o registro e estatico e outros testes o veem
+	private Role operator;
+	private Role admin;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		operator = new Role(1L, "ROLE_OPERATOR");
+		admin = new Role(2L, "ROLE_ADMIN");
+		Mockito.when(repository.findAll(any(Sort.class))).thenReturn(List.of(operator, admin));
+		registry.reload();
+	}
+
+	@Test
+	void hasHoleShouldCheckMaskWhenRolesAreRegistered() {
+
+		User user = new User(1L, "Maria", "Green", "maria@gmail.com", "x");
+		user.addRole(operator);
+
+		Assertions.assertTrue(user.hasHole("ROLE_OPERATOR"));
+		Assertions.assertFalse(user.hasHole("ROLE_ADMIN"));
+
+		user.addRole(admin);
+
+		Assertions.assertTrue(user.hasHole("ROLE_ADMIN"));
+		Assertions.assertFalse(user.hasHole("ROLE_UNKNOWN"));
+	}
+
+	@Test
+	void getAuthoritiesShouldReturnSharedListWhenUsersHaveSameRoles() {
+
+		User maria = new User(1L, "Maria", "Green", "maria@gmail.com", "x");
+		maria.addRole(admin);
+		User alex = new User(2L, "Alex", "Brown", "alex@gmail.com", "x");
+		alex.addRole(admin);
+
+		Assertions.assertSame(maria.getAuthorities(), alex.getAuthorities());
+		Assertions.assertEquals("ROLE_ADMIN", maria.getAuthorities().iterator().next().getAuthority());
+	}
+
+	@Test
+	void hasHoleShouldCompareAuthoritiesWhenRoleIsNotRegistered() {
+
+		User user = new User(1L, "Maria", "Green", "maria@gmail.com", "x");
+		user.addRole(new Role(99L, "ROLE_AUDITOR"));
+
+		Assertions.assertTrue(user.hasHole("ROLE_AUDITOR"));
+		Assertions.assertEquals(1, user.getAuthorities().size());
+	}
+
+	@Test
+	void reloadShouldKeepSnapshotWhenRowsAreTheSame() {
+
+		Object version = RoleRegistry.version();
+
+		registry.reload();
+
+		Assertions.assertSame(version, RoleRegistry.version());
+	}
+
+}
@@ -0,0 +1,123 @@
+package pt.amane.dscatalog.components;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
+
+class SingleFlightTests {
+
+	private SingleFlight<Long, String> singleFlight;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry(), Duration.ofMillis(200));
+		executor = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void executeShouldLoadOnceWhenConcurrentCallsUseSameKey() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = new ArrayList<>();
+		results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+			loads.incrementAndGet();
+			await(release);
+			return "product 1";
+		})));
+		// espera o lider entrar no loader antes de disparar os outros
+		while (loads.get() == 0) {
+			Thread.sleep(1);
+		}
+		for (int i = 0; i < 5; i++) {
+			results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+				loads.incrementAndGet();
+				return "duplicate";
+			})));
+		}
+		while (singleFlight.coalescedCount() < 5) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		for (Future<String> result : results) {
+			Assertions.assertEquals("product 1", result.get(5, TimeUnit.SECONDS));
+		}
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertEquals(5.0, singleFlight.coalescedCount());
+	}
+
+	@Test
+	void executeShouldPropagateLeaderExceptionAndNotKeepFailure() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute(2L, () -> {
+			started.countDown();
+			await(release);
+			throw new ResourceNotFoundException("Id not found! Id: 2");
+		}));
+		started.await();
+		Future<String> follower = executor.submit(() -> singleFlight.execute(2L, () -> "never"));
+		while (singleFlight.coalescedCount() < 1) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		Assertions.assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+		Exception e = Assertions.assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(e.getCause() instanceof ResourceNotFoundException);
+
+		// a falha nao fica guardada: a proxima chamada carrega de novo
+		Assertions.assertEquals("loaded", singleFlight.execute(2L, () -> "loaded"));
+	}
+
+	@Test
+	void executeShouldRunLoaderWhenInFlightLoadTakesLongerThanWaitTimeout() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute(3L, () -> {
+			started.countDown();
+			await(release);
+			return "slow";
+		}));
+		started.await();
+
+		// o lider continua preso: depois do wait-timeout o seguidor carrega sozinho
+		Assertions.assertEquals("own", singleFlight.execute(3L, () -> "own"));
+		Assertions.assertEquals(1.0, singleFlight.coalescedCount());
+
+		release.countDown();
+		Assertions.assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
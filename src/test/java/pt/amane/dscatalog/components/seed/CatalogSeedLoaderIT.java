@@ -0,0 +1,112 @@
+package pt.amane.dscatalog.components.seed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import pt.amane.dscatalog.components.CatalogCompressionFilter;
+import pt.amane.dscatalog.components.CatalogDataGenerator;
+import pt.amane.dscatalog.components.CompressedResponse;
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.entities.Product;
+import pt.amane.dscatalog.repositories.CategoryRepository;
+import pt.amane.dscatalog.repositories.ProductRepository;
+import pt.amane.dscatalog.services.MissingIdCache;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+@SpringBootTest
+@Transactional
+class CatalogSeedLoaderIT {
+
+	@Autowired
+	private CatalogSeedLoader loader;
+
+	@Autowired
+	private CatalogDataGenerator generator;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MissingIdCache missingIds;
+
+	@Test
+	void loadShouldInsertRowsAndLinksFromNdjson() throws Exception {
+		String seed = "{\"type\":\"category\",\"id\":1001,\"name\":\"Games\"}\n"
+				+ "{\"type\":\"product_category\",\"productId\":1001,\"categoryId\":1001}\n"
+				+ "\n"
+				+ "{\"type\":\"product\",\"id\":1001,\"name\":\"Console \\\"X\\\"\",\"price\":1999.9,"
+				+ "\"date\":\"2021-03-01T10:00:00Z\"}\n";
+
+		long rows = loader.load(new ByteArrayResource(seed.getBytes(StandardCharsets.UTF_8)));
+
+		// o link vem antes do produto no arquivo, mas e gravado depois dele
+		Assertions.assertEquals(3, rows);
+		Product product = productRepository.findById(1001L).orElseThrow();
+		Assertions.assertEquals("Console \"X\"", product.getName());
+		Assertions.assertEquals(1, product.getCategories().size());
+		Assertions.assertNotNull(product.getUpdatedAt());
+	}
+
+	@Test
+	void loadShouldRejectUnknownTypeWithLineNumber() {
+		ByteArrayResource seed = new ByteArrayResource(
+				"{\"type\":\"category\",\"id\":1001,\"name\":\"Games\"}\n{\"type\":\"order\",\"id\":1}\n"
+						.getBytes(StandardCharsets.UTF_8));
+
+		IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> loader.load(seed));
+		Assertions.assertTrue(e.getMessage().contains("line 2"));
+	}
+
+	@Test
+	void generateShouldAddSyntheticRowsAfterExistingOnes() {
+		long products = productRepository.count();
+		long categories = categoryRepository.count();
+
+		generator.generate(2000, 10, 5);
+
+		Assertions.assertEquals(products + 2000, productRepository.count());
+		Assertions.assertEquals(categories + 10, categoryRepository.count());
+	}
+
+	// sem transacao: os caches sao limpos na hora, e nenhuma linha e gravada
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void invalidateCachesShouldClearCatalogCachesAndMissingIds() {
+		List<String> names = List.of(CacheConfig.PRODUCTS, CacheConfig.CATEGORIES, CacheConfig.RESPONSES);
+		cacheManager.getCache(CacheConfig.PRODUCTS).put(1L, "cached");
+		cacheManager.getCache(CacheConfig.CATEGORIES).put(1L, "cached");
+		cacheManager.getCache(CacheConfig.RESPONSES).put(1L,
+				new CompressedResponse(new byte[1], CatalogCompressionFilter.GZIP, "application/json", null, 0L));
+		missingIds.markMissing(CatalogChangeEvent.PRODUCT, 1001L, missingIds.stamp(CatalogChangeEvent.PRODUCT));
+
+		loader.invalidateCaches();
+
+		for (String name : names) {
+			Assertions.assertNull(cacheManager.getCache(name).get(1L), name);
+		}
+		Assertions.assertFalse(missingIds.isMissing(CatalogChangeEvent.PRODUCT, 1001L));
+	}
+
+	@Test
+	void toCsvShouldQuoteStringsAndLeaveNullsEmpty() {
+		String csv = CatalogSeedLoader.toCsv(List.<Object[]>of(new Object[] { 1L, "a \"b\", c", null, 2.5 }));
+
+		Assertions.assertEquals("1,\"a \"\"b\"\", c\",,2.5\n", csv);
+	}
+
+}
@@ -0,0 +1,133 @@
+package pt.amane.dscatalog.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+class ConnectionPoolDiagnosticsTests {
+
+	private ConnectionPoolDiagnostics diagnostics;
+	private IMetricsTracker tracker;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		diagnostics = new ConnectionPoolDiagnostics(() -> null, Duration.ofMillis(100), Duration.ofSeconds(10));
+		tracker = diagnostics.create("primary", new PoolStats(0) {
+			@Override
+			protected void update() {
+				totalConnections = 2;
+				activeConnections = 2;
+				pendingThreads = 3;
+				maxConnections = 2;
+			}
+		});
+	}
+
+	@Test
+	void snapshotShouldListHolderWhenConnectionIsBorrowed() {
+
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(1));
+
+		Map<String, Object> pool = pool();
+		List<?> holders = (List<?>) pool.get("holders");
+		Assertions.assertEquals(3, pool.get("waiting"));
+		Assertions.assertEquals(1, holders.size());
+		Assertions.assertEquals(2, ((Map<?, ?>) holders.get(0)).get("connections"));
+		Assertions.assertEquals(Thread.currentThread().getName(), ((Map<?, ?>) holders.get(0)).get("thread"));
+	}
+
+	@Test
+	void snapshotShouldDropHolderWhenAllConnectionsAreReturned() {
+
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		tracker.recordConnectionUsageMillis(5);
+		tracker.recordConnectionUsageMillis(5);
+
+		Assertions.assertTrue(((List<?>) pool().get("holders")).isEmpty());
+	}
+
+	@Test
+	void snapshotShouldCountSlowAcquisitionWhenAboveThreshold() {
+
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(50));
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(250));
+		tracker.recordConnectionTimeout();
+
+		Map<String, Object> pool = pool();
+		Assertions.assertEquals(1L, pool.get("slowAcquisitions"));
+		Assertions.assertEquals(1L, pool.get("timeouts"));
+		Assertions.assertEquals(250L, pool.get("maxAcquireMillis"));
+	}
+
+	@Test
+	void customizeShouldSetPgjdbcPropertiesOnlyWhenUrlIsPostgres() {
+
+		ConnectionPoolProperties properties = new ConnectionPoolProperties();
+		properties.setMaximumPoolSize(20);
+		properties.setMinimumIdle(5);
+		HikariPoolCustomizer customizer = new HikariPoolCustomizer(properties, diagnostics);
+
+		HikariDataSource postgres = new HikariDataSource();
+		postgres.setJdbcUrl("jdbc:postgresql://localhost:5432/dscatalog");
+		customizer.customize(postgres);
+		HikariDataSource h2 = new HikariDataSource();
+		h2.setJdbcUrl("jdbc:h2:mem:test");
+		customizer.customize(h2);
+
+		Assertions.assertEquals(20, postgres.getMaximumPoolSize());
+		Assertions.assertEquals(5, postgres.getMinimumIdle());
+		Assertions.assertEquals(true, postgres.getDataSourceProperties().get("reWriteBatchedInserts"));
+		Assertions.assertSame(diagnostics, postgres.getMetricsTrackerFactory());
+		Assertions.assertTrue(h2.getDataSourceProperties().isEmpty());
+	}
+
+	@Test
+	void customizeShouldKeepPoolValuesWhenSettingsAreNotGiven() {
+
+		HikariPoolCustomizer customizer = new HikariPoolCustomizer(new ConnectionPoolProperties(), diagnostics);
+
+		// como vindos de spring.datasource.hikari.*
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:postgresql://localhost:5432/dscatalog");
+		dataSource.setMaximumPoolSize(7);
+		dataSource.setConnectionTimeout(1234);
+		dataSource.addDataSourceProperty("prepareThreshold", 0);
+		customizer.customize(dataSource);
+
+		Assertions.assertEquals(7, dataSource.getMaximumPoolSize());
+		Assertions.assertEquals(1234, dataSource.getConnectionTimeout());
+		Assertions.assertEquals(0, dataSource.getDataSourceProperties().get("prepareThreshold"));
+		Assertions.assertEquals(256, dataSource.getDataSourceProperties().get("preparedStatementCacheQueries"));
+	}
+
+	@Test
+	void constructorShouldFailWhenSettingIsAlsoGivenInHikariProperties() {
+
+		ConnectionPoolProperties properties = new ConnectionPoolProperties();
+		properties.setMaximumPoolSize(20);
+		properties.setIdleTimeout(Duration.ofMinutes(5));
+
+		IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> {
+			new HikariPoolCustomizer(properties, diagnostics, List.of("maximum-pool-size", "max-lifetime"));
+		});
+		Assertions.assertTrue(e.getMessage().contains("[maximum-pool-size]"));
+	}
+
+	private Map<String, Object> pool() {
+		@SuppressWarnings("unchecked")
+		Map<String, Object> pool = (Map<String, Object>) diagnostics.snapshot().get("primary");
+		return pool;
+	}
+
+}
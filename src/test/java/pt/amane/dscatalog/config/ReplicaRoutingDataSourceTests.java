@@ -0,0 +1,88 @@
+package pt.amane.dscatalog.config;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Usa duas (ou tres) bases H2 em memoria para simular primary e replicas.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private DataSource primary;
+	private Map<String, DataSource> replicas;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		primary = h2("primary");
+		replicas = new LinkedHashMap<>();
+		replicas.put("replica-0", h2("replica0"));
+		replicas.put("replica-1", h2("replica1"));
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void getConnectionShouldUsePrimaryWhenTransactionIsNotReadOnly() throws Exception {
+		ReplicaRoutingDataSource routing = routing(replicas);
+
+		Assertions.assertTrue(url(routing).contains("primary"));
+	}
+
+	@Test
+	void getConnectionShouldRoundRobinReplicasWhenTransactionIsReadOnly() throws Exception {
+		ReplicaRoutingDataSource routing = routing(replicas);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		String first = url(routing);
+		String second = url(routing);
+
+		Assertions.assertTrue(first.contains("replica"));
+		Assertions.assertTrue(second.contains("replica"));
+		Assertions.assertNotEquals(first, second);
+	}
+
+	@Test
+	void getConnectionShouldFallBackToPrimaryWhenNoReplicaIsHealthy() throws Exception {
+		Map<String, DataSource> broken = new LinkedHashMap<>();
+		broken.put("replica-0", new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/missing", "sa", ""));
+		ReplicaRoutingDataSource routing = routing(broken);
+
+		routing.checkHealth();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		Assertions.assertFalse(routing.isHealthy("replica-0"));
+		Assertions.assertTrue(url(routing).contains("primary"));
+	}
+
+	private ReplicaRoutingDataSource routing(Map<String, DataSource> targets) {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, targets, Duration.ZERO,
+				Duration.ofSeconds(1));
+		routing.afterPropertiesSet();
+		return routing;
+	}
+
+	private String url(DataSource dataSource) throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			return connection.getMetaData().getURL();
+		}
+	}
+
+	private DataSource h2(String name) {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+	}
+
+}
@@ -0,0 +1,50 @@
+package pt.amane.dscatalog.converters;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.proto.ProductPage;
+import pt.amane.dscatalog.tests.Factory;
+
+class CatalogProtobufCodecTests {
+
+	@Test
+	void productPageShouldRoundTrip() throws Exception {
+		ProductDTO product = Factory.createProductDTO();
+		product.setVersion(3L);
+		ProductDTO withoutPrice = Factory.createProductDTO();
+		withoutPrice.setId(2L);
+		withoutPrice.setPrice(null);
+		Page<ProductDTO> page = new PageImpl<>(Arrays.asList(product, withoutPrice), PageRequest.of(1, 2), 7);
+
+		byte[] bytes = CatalogProtobufCodec.toProductPage(page).toByteArray();
+
+		Page<ProductDTO> result = CatalogProtobufCodec.toPage(ProductPage.parseFrom(bytes));
+
+		Assertions.assertEquals(1, result.getNumber());
+		Assertions.assertEquals(2, result.getSize());
+		Assertions.assertEquals(7L, result.getTotalElements());
+		Assertions.assertEquals(2, result.getContent().size());
+
+		ProductDTO first = result.getContent().get(0);
+		Assertions.assertEquals(product.getId(), first.getId());
+		Assertions.assertEquals(product.getName(), first.getName());
+		Assertions.assertEquals(product.getDescription(), first.getDescription());
+		Assertions.assertEquals(product.getPrice(), first.getPrice());
+		Assertions.assertEquals(product.getImgUrl(), first.getImgUrl());
+		Assertions.assertEquals(product.getDate(), first.getDate());
+		Assertions.assertEquals(3L, first.getVersion());
+		Assertions.assertEquals(1, first.getCategories().size());
+		Assertions.assertEquals("Electronics", first.getCategories().get(0).getName());
+
+		Assertions.assertNull(result.getContent().get(1).getPrice());
+		Assertions.assertNull(result.getContent().get(1).getVersion());
+	}
+
+}
@@ -0,0 +1,258 @@
+package pt.amane.dscatalog.perf;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scripted HTTP load test against a running application.
+ *
+ * Not a JUnit test: run it with the test classpath, e.g.
+ * java -cp target/test-classes -Dthreads=64 -Dduration=60 pt.amane.dscatalog.perf.CatalogLoadHarness
+ *
+ * 404 throughput: -Dmix=notFound=1 (GET of product ids that do not exist).
+ *
+ * System properties: baseUrl, threads, duration (s), warmup (s), mix (scenario=weight,...),
+ * maxProductId, maxCategoryId, username, password, clientId, clientSecret.
+ */
+public class CatalogLoadHarness {
+
+	private static final Pattern ACCESS_TOKEN = Pattern.compile("\"access_token\"\\s*:\\s*\"([^\"]+)\"");
+
+	private final String baseUrl = System.getProperty("baseUrl", "http://localhost:8080");
+	private final int threads = Integer.getInteger("threads", 32);
+	private final int durationSeconds = Integer.getInteger("duration", 60);
+	private final int warmupSeconds = Integer.getInteger("warmup", 10);
+	private final long maxProductId = Long.getLong("maxProductId", 25);
+	private final long maxCategoryId = Long.getLong("maxCategoryId", 3);
+	private final String username = System.getProperty("username", "maria@gmail.com");
+	private final String password = System.getProperty("password", "123456");
+	private final String clientId = System.getProperty("clientId", "dscatalog");
+	private final String clientSecret = System.getProperty("clientSecret", "dscatalog123");
+	private final String mix = System.getProperty("mix", "listByCategory=30,listByName=20,findById=40,token=5,write=5");
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	private final Map<String, Integer> weights = new LinkedHashMap<>();
+	private final Map<String, LatencyRecorder[]> recorders = new LinkedHashMap<>();
+	private volatile String accessToken;
+
+	public static void main(String[] args) throws Exception {
+		new CatalogLoadHarness().run();
+	}
+
+	void run() throws Exception {
+		for (String entry : mix.split(",")) {
+			String[] pair = entry.trim().split("=");
+			weights.put(pair[0], Integer.parseInt(pair[1]));
+			LatencyRecorder[] perThread = new LatencyRecorder[threads];
+			for (int i = 0; i < threads; i++) {
+				perThread[i] = new LatencyRecorder();
+			}
+			recorders.put(pair[0], perThread);
+		}
+		accessToken = obtainToken();
+
+		System.out.printf("Warming up %d threads for %d s against %s%n", threads, warmupSeconds, baseUrl);
+		runPhase(warmupSeconds, false);
+		System.out.printf("Measuring for %d s%n", durationSeconds);
+		runPhase(durationSeconds, true);
+		report();
+	}
+
+	private void runPhase(int seconds, boolean record) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+		CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final int index = t;
+			Thread worker = new Thread(() -> {
+				try {
+					while (System.nanoTime() < deadline) {
+						String scenario = pickScenario();
+						long start = System.nanoTime();
+						boolean ok;
+						try {
+							ok = execute(scenario);
+						} catch (Exception e) {
+							ok = false;
+						}
+						if (record) {
+							recorders.get(scenario)[index].record(System.nanoTime() - start, ok);
+						}
+					}
+				} finally {
+					done.countDown();
+				}
+			}, "load-" + t);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		done.await();
+	}
+
+	private String pickScenario() {
+		int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+		int roll = ThreadLocalRandom.current().nextInt(total);
+		for (Map.Entry<String, Integer> e : weights.entrySet()) {
+			roll -= e.getValue();
+			if (roll < 0) {
+				return e.getKey();
+			}
+		}
+		return weights.keySet().iterator().next();
+	}
+
+	/**
+	 * Runs one request of the given scenario. Subclasses (and later scenarios)
+	 * plug in here; unknown names fail fast.
+	 */
+	protected boolean execute(String scenario) throws Exception {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		switch (scenario) {
+		case "listByCategory":
+			return get("/products?categoryId=" + (1 + random.nextLong(maxCategoryId)) + "&page="
+					+ random.nextInt(5));
+		case "listByName":
+			return get("/products?name=" + URLEncoder.encode(randomWord(), StandardCharsets.UTF_8));
+		case "findById":
+			return get("/products/" + (1 + random.nextLong(maxProductId)));
+		case "notFound":
+			// ids que nao existem, como os de robos: o 404 e o resultado esperado
+			return status("/products/" + (maxProductId + 1_000_000 + random.nextLong(1_000_000))) == 404;
+		case "token":
+			return obtainToken() != null;
+		case "write":
+			return write();
+		default:
+			throw new IllegalArgumentException("Unknown scenario: " + scenario);
+		}
+	}
+
+	protected boolean get(String path) throws Exception {
+		return status(path) < 400;
+	}
+
+	protected int status(String path) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET()
+				.header("Accept", "application/json").build();
+		HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		return response.statusCode();
+	}
+
+	private boolean write() throws Exception {
+		String body = "{\"name\":\"Load " + System.nanoTime() + "\",\"description\":\"load test\",\"price\":10.5,"
+				+ "\"imgUrl\":\"https://img.dscatalog.local/load.jpg\",\"date\":\"2020-07-20T10:00:00Z\","
+				+ "\"categories\":[{\"id\":1}]}";
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/products"))
+				.POST(HttpRequest.BodyPublishers.ofString(body)).header("Content-Type", "application/json")
+				.header("Authorization", "Bearer " + accessToken).build();
+		HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+		return response.statusCode() < 400;
+	}
+
+	private String obtainToken() throws Exception {
+		String form = "grant_type=password&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+				+ "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+		String basic = Base64.getEncoder()
+				.encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/oauth/token"))
+				.POST(HttpRequest.BodyPublishers.ofString(form))
+				.header("Content-Type", "application/x-www-form-urlencoded").header("Authorization", "Basic " + basic)
+				.build();
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+		return matcher.find() ? matcher.group(1) : null;
+	}
+
+	private String randomWord() {
+		String[] words = { "PC", "Gamer", "Smart", "Pro", "Book", "Phone" };
+		return words[ThreadLocalRandom.current().nextInt(words.length)];
+	}
+
+	private void report() {
+		System.out.println();
+		System.out.printf(Locale.ROOT, "%-16s %10s %8s %10s %10s %10s %10s %10s%n", "scenario", "requests", "errors",
+				"req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+		long totalRequests = 0;
+		for (Map.Entry<String, LatencyRecorder[]> e : recorders.entrySet()) {
+			LatencyRecorder merged = LatencyRecorder.merge(Arrays.asList(e.getValue()));
+			totalRequests += merged.count();
+			System.out.printf(Locale.ROOT, "%-16s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", e.getKey(),
+					merged.count(), merged.errors(), merged.count() / (double) durationSeconds,
+					merged.percentileMillis(50), merged.percentileMillis(90), merged.percentileMillis(99),
+					merged.percentileMillis(100));
+		}
+		System.out.printf(Locale.ROOT, "%-16s %10d %8s %10.1f%n", "total", totalRequests, "",
+				totalRequests / (double) durationSeconds);
+	}
+
+	/**
+	 * Per-thread latency samples; merged and sorted only once, at report time.
+	 */
+	static class LatencyRecorder {
+
+		private long[] samples = new long[1024];
+		private int size;
+		private long errors;
+
+		void record(long nanos, boolean ok) {
+			if (size == samples.length) {
+				samples = Arrays.copyOf(samples, size * 2);
+			}
+			samples[size++] = nanos;
+			if (!ok) {
+				errors++;
+			}
+		}
+
+		long count() {
+			return size;
+		}
+
+		long errors() {
+			return errors;
+		}
+
+		double percentileMillis(double percentile) {
+			if (size == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+			return samples[Math.max(0, Math.min(index, size - 1))] / 1_000_000.0;
+		}
+
+		static LatencyRecorder merge(List<LatencyRecorder> recorders) {
+			LatencyRecorder merged = new LatencyRecorder();
+			List<long[]> parts = new ArrayList<>();
+			int total = 0;
+			for (LatencyRecorder r : recorders) {
+				parts.add(Arrays.copyOf(r.samples, r.size));
+				total += r.size;
+				merged.errors += r.errors;
+			}
+			merged.samples = new long[Math.max(total, 1)];
+			for (long[] part : parts) {
+				System.arraycopy(part, 0, merged.samples, merged.size, part.length);
+				merged.size += part.length;
+			}
+			Arrays.sort(merged.samples, 0, merged.size);
+			return merged;
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package pt.amane.dscatalog.perf;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Random;
+
+import pt.amane.dscatalog.entities.User;
+
+/**
+ * Cost of an email lookup on a users table of a million rows: the normalized
+ * email against the unique index, LOWER(email) = ? without an index (what a
+ * case-insensitive lookup costs unless the email is normalized) and, on
+ * Postgres, LOWER(email) = ? against a functional index. Uses its own table
+ * (bench_user), dropped at the end.
+ *
+ * java -cp target/test-classes:target/classes:... -Drows=1000000 pt.amane.dscatalog.perf.EmailLookupBenchmark
+ * java ... -Durl=jdbc:postgresql://localhost:5432/dscatalog -Duser=postgres -Dpassword=1234567 pt.amane.dscatalog.perf.EmailLookupBenchmark
+ *
+ * System properties: url, user, password, rows, lookups, scanLookups.
+ */
+public class EmailLookupBenchmark {
+
+	private final String url = System.getProperty("url", "jdbc:h2:mem:emailbench;DB_CLOSE_DELAY=-1");
+	private final String user = System.getProperty("user", "sa");
+	private final String password = System.getProperty("password", "");
+	private final int rows = Integer.getInteger("rows", 1_000_000);
+	private final int lookups = Integer.getInteger("lookups", 20_000);
+	// sem indice cada busca le a tabela inteira
+	private final int scanLookups = Integer.getInteger("scanLookups", 20);
+
+	private final Random random = new Random(42);
+
+	private long blackhole;
+
+	public static void main(String[] args) throws Exception {
+		new EmailLookupBenchmark().run();
+	}
+
+	void run() throws Exception {
+		try (Connection connection = DriverManager.getConnection(url, user, password)) {
+			boolean postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+			try {
+				populate(connection);
+
+				System.out.printf(Locale.ROOT, "%n%s, %d rows%n", connection.getMetaData().getDatabaseProductName(),
+						rows);
+				System.out.printf(Locale.ROOT, "%-36s %10s %12s%n", "lookup", "lookups", "us/lookup");
+				measure(connection, "email = ? (unique index)", "SELECT id FROM bench_user WHERE email = ?", lookups);
+				measure(connection, "LOWER(email) = ? (no index)", "SELECT id FROM bench_user WHERE LOWER(email) = ?",
+						scanLookups);
+				if (postgres) {
+					// o H2 1.4 nao tem indice funcional
+					execute(connection, "CREATE UNIQUE INDEX bench_user_email_lower ON bench_user (LOWER(email))");
+					execute(connection, "ANALYZE bench_user");
+					measure(connection, "LOWER(email) = ? (functional index)",
+							"SELECT id FROM bench_user WHERE LOWER(email) = ?", lookups);
+				}
+			} finally {
+				execute(connection, "DROP TABLE IF EXISTS bench_user");
+			}
+		}
+	}
+
+	private void populate(Connection connection) throws SQLException {
+		long start = System.currentTimeMillis();
+		execute(connection, "DROP TABLE IF EXISTS bench_user");
+		execute(connection, "CREATE TABLE bench_user (id BIGINT PRIMARY KEY, email VARCHAR(255) NOT NULL)");
+		connection.setAutoCommit(false);
+		try (PreparedStatement ps = connection.prepareStatement("INSERT INTO bench_user (id, email) VALUES (?, ?)")) {
+			for (int i = 1; i <= rows; i++) {
+				ps.setLong(1, i);
+				ps.setString(2, User.normalizeEmail(email(i)));
+				ps.addBatch();
+				if (i % 5000 == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+		connection.commit();
+		connection.setAutoCommit(true);
+		execute(connection, "ALTER TABLE bench_user ADD CONSTRAINT bench_user_email UNIQUE (email)");
+		System.out.printf(Locale.ROOT, "Populated bench_user in %d ms%n", System.currentTimeMillis() - start);
+	}
+
+	private void measure(Connection connection, String label, String sql, int count) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+			// aquecimento com um decimo das buscas
+			lookup(ps, Math.max(1, count / 10));
+			long start = System.nanoTime();
+			lookup(ps, count);
+			double micros = (System.nanoTime() - start) / 1000.0 / count;
+			System.out.printf(Locale.ROOT, "%-36s %10d %12.1f%n", label, count, micros);
+		}
+	}
+
+	private void lookup(PreparedStatement ps, int count) throws SQLException {
+		for (int i = 0; i < count; i++) {
+			// como chega no login: maiusculas e espacos variados
+			String input = "  " + email(1 + random.nextInt(rows)).toUpperCase(Locale.ROOT) + " ";
+			ps.setString(1, User.normalizeEmail(input));
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					throw new IllegalStateException("Email not found: " + input);
+				}
+				blackhole += rs.getLong(1);
+			}
+		}
+	}
+
+	private static String email(int i) {
+		return "User" + i + "@Example.com";
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+}
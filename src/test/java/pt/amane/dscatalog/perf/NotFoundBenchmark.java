@@ -0,0 +1,94 @@
+package pt.amane.dscatalog.perf;
+
+import java.util.Locale;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.resources.exceptions.ResourceExceptionHandler;
+import pt.amane.dscatalog.resources.exceptions.StandardError;
+import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
+import pt.amane.dscatalog.services.exceptions.ServiceException;
+
+/**
+ * Cost of a 404 in-process: throw ResourceNotFoundException below a call
+ * stack as deep as a servlet request's, catch it, build the StandardError in
+ * ResourceExceptionHandler and serialize it. "before" is the old path (stack
+ * trace, message with ProductDTO.class.getName()); "after" is the stackless
+ * exception with the message built by the handler.
+ *
+ * java -cp target/test-classes:target/classes:... -Ddepth=120 -Diterations=500000 pt.amane.dscatalog.perf.NotFoundBenchmark
+ *
+ * End to end, against a running application: CatalogLoadHarness with -Dmix=notFound=1,
+ * once with EXCEPTION_STACK_TRACES=true and once without.
+ *
+ * System properties: depth, warmup, iterations.
+ */
+public class NotFoundBenchmark {
+
+	private final int depth = Integer.getInteger("depth", 120);
+	private final int warmup = Integer.getInteger("warmup", 100_000);
+	private final int iterations = Integer.getInteger("iterations", 500_000);
+
+	private final ResourceExceptionHandler handler = new ResourceExceptionHandler();
+	private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/999999");
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	// evita que o JIT descarte o trabalho medido
+	private long blackhole;
+
+	public static void main(String[] args) throws Exception {
+		new NotFoundBenchmark().run();
+	}
+
+	void run() throws Exception {
+		System.out.printf(Locale.ROOT, "Stack depth %d, %d iterations%n", depth, iterations);
+		System.out.printf(Locale.ROOT, "%-8s %12s %14s%n", "variant", "ns/404", "404/s/thread");
+		boolean previous = ServiceException.isStackTraces();
+		try {
+			measure("before", true);
+			measure("after", false);
+		} finally {
+			ServiceException.setStackTraces(previous);
+		}
+	}
+
+	private void measure(String variant, boolean before) throws Exception {
+		ServiceException.setStackTraces(before);
+		loop(warmup, before);
+		long start = System.nanoTime();
+		loop(iterations, before);
+		double nanos = (double) (System.nanoTime() - start) / iterations;
+		System.out.printf(Locale.ROOT, "%-8s %12.0f %14.0f%n", variant, nanos, 1e9 / nanos);
+	}
+
+	private void loop(int count, boolean before) throws Exception {
+		for (int i = 0; i < count; i++) {
+			long id = 1_000_000L + i;
+			try {
+				deep(depth, id, before);
+			} catch (ResourceNotFoundException e) {
+				ResponseEntity<StandardError> response = handler.objectNotFound(e, request);
+				blackhole += objectMapper.writeValueAsBytes(response.getBody()).length;
+			}
+		}
+	}
+
+	private static int deep(int frames, long id, boolean before) {
+		if (frames > 0) {
+			return deep(frames - 1, id, before) + 1;
+		}
+		if (before) {
+			throw new ResourceNotFoundException(
+					"Object not found! Id: " + id + ", Type: " + ProductDTO.class.getName());
+		}
+		throw new ResourceNotFoundException("Product", id);
+	}
+
+}
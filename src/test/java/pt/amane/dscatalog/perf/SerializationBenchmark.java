@@ -0,0 +1,172 @@
+package pt.amane.dscatalog.perf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import pt.amane.dscatalog.converters.CatalogProtobufCodec;
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.proto.ProductPage;
+
+/**
+ * Encode/decode cost and payload size of one Page<ProductDTO> in JSON, CBOR,
+ * Smile and Protobuf. Single-threaded, in-process; no server needed.
+ *
+ * java -cp target/test-classes:... -DpageSize=100 -Diterations=20000 pt.amane.dscatalog.perf.SerializationBenchmark
+ *
+ * System properties: pageSize, descriptionLength, warmup, iterations.
+ */
+public class SerializationBenchmark {
+
+	private final int pageSize = Integer.getInteger("pageSize", 100);
+	private final int descriptionLength = Integer.getInteger("descriptionLength", 400);
+	private final int warmup = Integer.getInteger("warmup", 5000);
+	private final int iterations = Integer.getInteger("iterations", 20000);
+
+	// evita que o JIT descarte o trabalho medido
+	private long blackhole;
+
+	public static void main(String[] args) throws Exception {
+		new SerializationBenchmark().run();
+	}
+
+	void run() throws Exception {
+		Page<ProductDTO> page = samplePage();
+
+		System.out.printf(Locale.ROOT, "Page of %d products, description %d chars, %d iterations%n", pageSize,
+				descriptionLength, iterations);
+		System.out.printf(Locale.ROOT, "%-10s %10s %10s %12s %12s%n", "format", "bytes", "gzip", "encode us", "decode us");
+
+		measure("json", jackson(new ObjectMapper()), page);
+		measure("cbor", jackson(new ObjectMapper(new CBORFactory())), page);
+		measure("smile", jackson(new ObjectMapper(new SmileFactory())), page);
+		measure("protobuf", new ProtobufFormat(), page);
+
+		if (blackhole == 42) {
+			System.out.println();
+		}
+	}
+
+	private void measure(String name, Format format, Page<ProductDTO> page) throws Exception {
+		byte[] encoded = format.encode(page);
+		for (int i = 0; i < warmup; i++) {
+			blackhole += format.encode(page).length;
+			blackhole += format.decode(encoded);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			blackhole += format.encode(page).length;
+		}
+		double encodeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			blackhole += format.decode(encoded);
+		}
+		double decodeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+		System.out.printf(Locale.ROOT, "%-10s %10d %10d %12.2f %12.2f%n", name, encoded.length, gzip(encoded).length,
+				encodeMicros, decodeMicros);
+	}
+
+	private Page<ProductDTO> samplePage() {
+		Random random = new Random(42);
+		StringBuilder description = new StringBuilder();
+		while (description.length() < descriptionLength) {
+			description.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ");
+		}
+		List<ProductDTO> content = new ArrayList<>();
+		for (long id = 1; id <= pageSize; id++) {
+			ProductDTO dto = new ProductDTO(id, "Product " + id, description.substring(0, descriptionLength),
+					Math.round(random.nextDouble() * 500000) / 100.0, "https://img.dscatalog.local/" + id + ".jpg",
+					Instant.parse("2020-07-14T10:00:00Z").plusSeconds(random.nextInt(1_000_000)));
+			dto.setVersion((long) random.nextInt(10));
+			for (long c = 1; c <= 1 + random.nextInt(3); c++) {
+				CategoryDTO category = new CategoryDTO(c, "Category " + c);
+				category.setVersion(0L);
+				dto.getCategories().add(category);
+			}
+			content.add(dto);
+		}
+		return new PageImpl<>(content, PageRequest.of(0, pageSize), pageSize * 10L);
+	}
+
+	private static Format jackson(ObjectMapper mapper) {
+		mapper.registerModule(new JavaTimeModule());
+		mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		return new Format() {
+
+			@Override
+			public byte[] encode(Page<ProductDTO> page) throws IOException {
+				return mapper.writeValueAsBytes(page);
+			}
+
+			@Override
+			public int decode(byte[] bytes) throws IOException {
+				return mapper.readValue(bytes, PageEnvelope.class).content.size();
+			}
+		};
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes);
+		}
+		return out.toByteArray();
+	}
+
+	interface Format {
+
+		byte[] encode(Page<ProductDTO> page) throws IOException;
+
+		// devolve o numero de produtos lidos
+		int decode(byte[] bytes) throws IOException;
+	}
+
+	static class ProtobufFormat implements Format {
+
+		@Override
+		public byte[] encode(Page<ProductDTO> page) throws IOException {
+			return CatalogProtobufCodec.toProductPage(page).toByteArray();
+		}
+
+		@Override
+		public int decode(byte[] bytes) throws IOException {
+			return CatalogProtobufCodec.toPage(ProductPage.parseFrom(bytes)).getContent().size();
+		}
+	}
+
+	/**
+	 * The JSON shape of a PageImpl, enough to read it back (PageImpl itself has no
+	 * Jackson constructor).
+	 */
+	public static class PageEnvelope {
+
+		public List<ProductDTO> content = new ArrayList<>();
+		public long totalElements;
+		public int totalPages;
+		public int number;
+		public int size;
+	}
+
+}
@@ -0,0 +1,127 @@
+package pt.amane.dscatalog.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-to-first-request of the application: starts it as a child JVM, polls a
+ * catalog endpoint until it answers 200 and stops it again. Each variant
+ * (a set of profiles) runs the same number of times, interleaved, so they see
+ * the same machine noise.
+ *
+ * java -cp target/test-classes:target/classes:... -Dvariants="test;test,fast-start" -Druns=10 pt.amane.dscatalog.perf.StartupBenchmark
+ *
+ * With the AppCDS archive from mvn -Pfast-start package, run the child with the
+ * same classpath the archive was dumped with:
+ * -Dclasspath="target/classes:$(cat target/app-cds.classpath)" -DjvmArgs="-XX:SharedArchiveFile=target/app-cds.jsa"
+ *
+ * System properties: variants (profiles; variants separated by ';'), runs,
+ * classpath, jvmArgs, path, timeout (s), log.
+ */
+public class StartupBenchmark {
+
+	private final String[] variants = System.getProperty("variants", "test;test,fast-start").split(";");
+	private final int runs = Integer.getInteger("runs", 5);
+	private final String classpath = System.getProperty("classpath", System.getProperty("java.class.path"));
+	private final String jvmArgs = System.getProperty("jvmArgs", "");
+	private final String path = System.getProperty("path", "/categories");
+	private final int timeoutSeconds = Integer.getInteger("timeout", 120);
+	private final File log = new File(System.getProperty("log", "target/startup-benchmark.log"));
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	public static void main(String[] args) throws Exception {
+		new StartupBenchmark().run();
+	}
+
+	void run() throws Exception {
+		Map<String, List<Long>> results = new LinkedHashMap<>();
+		for (String variant : variants) {
+			results.put(variant, new ArrayList<>());
+		}
+
+		// uma partida descartada por variante: aquece o cache de disco do SO
+		for (String variant : variants) {
+			timeToFirstRequest(variant);
+		}
+		for (int i = 0; i < runs; i++) {
+			for (String variant : variants) {
+				long millis = timeToFirstRequest(variant);
+				results.get(variant).add(millis);
+				System.out.printf(Locale.ROOT, "run %d %-24s %6d ms%n", i + 1, variant, millis);
+			}
+		}
+
+		System.out.printf(Locale.ROOT, "%nTime to first request (GET %s), %d runs, jvmArgs: %s%n", path, runs,
+				jvmArgs.isEmpty() ? "-" : jvmArgs);
+		System.out.printf(Locale.ROOT, "%-24s %8s %8s %8s%n", "profiles", "min", "median", "max");
+		for (Map.Entry<String, List<Long>> entry : results.entrySet()) {
+			List<Long> times = entry.getValue();
+			Collections.sort(times);
+			System.out.printf(Locale.ROOT, "%-24s %8d %8d %8d%n", entry.getKey(), times.get(0),
+					times.get(times.size() / 2), times.get(times.size() - 1));
+		}
+	}
+
+	private long timeToFirstRequest(String profiles) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if (!jvmArgs.isBlank()) {
+			command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+		}
+		command.addAll(Arrays.asList("-cp", classpath, "pt.amane.dscatalog.DscatalogApplication",
+				"--spring.profiles.active=" + profiles, "--server.port=" + port));
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.timeout(Duration.ofSeconds(10)).build();
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(log)).start();
+		try {
+			long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+			while (System.nanoTime() < deadline) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+				}
+				try {
+					if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					}
+				} catch (IOException e) {
+					// ainda subindo
+				}
+				Thread.sleep(10);
+			}
+			throw new IllegalStateException("No answer from " + request.uri() + " after " + timeoutSeconds + "s");
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package pt.amane.dscatalog.reactive;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * O contexto servlet (JPA) cria e popula o banco H2 em memoria; a API reativa
+ * sobe em seguida, na mesma JVM, lendo o mesmo banco por R2DBC.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveCatalogApplicationIT {
+
+	private static ConfigurableApplicationContext reactiveContext;
+
+	@Autowired
+	private ApplicationContext servletContext;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		if (reactiveContext == null) {
+			reactiveContext = new SpringApplicationBuilder(ReactiveCatalogApplication.class)
+					.web(WebApplicationType.REACTIVE)
+					.profiles("reactive")
+					// argumentos, e nao properties() (so defaults), para valer sobre application-reactive
+					.run("--server.port=0", "--spring.r2dbc.url=r2dbc:h2:mem:///test",
+							"--spring.r2dbc.username=sa", "--spring.r2dbc.password=");
+		}
+		client = WebTestClient.bindToApplicationContext(reactiveContext).build();
+	}
+
+	@AfterAll
+	static void tearDown() {
+		if (reactiveContext != null) {
+			reactiveContext.close();
+			reactiveContext = null;
+		}
+	}
+
+	@Test
+	void servletApplicationShouldStillServeMvcWithoutR2dbc() throws Exception {
+
+		// webflux no classpath nao muda o tipo da aplicacao principal
+		Assertions.assertTrue(servletContext instanceof WebApplicationContext);
+		Assertions.assertEquals(1, servletContext.getBeanNamesForType(DispatcherServlet.class).length);
+		Assertions.assertEquals(0, servletContext.getBeanNamesForType(ConnectionFactory.class).length);
+
+		mockMvc.perform(get("/products/{id}", 1L).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.name").value("The Lord of the Rings"));
+	}
+
+	@Test
+	void findByIdShouldReturnProductWithCategories() {
+		client.get().uri("/products/{id}", 1L).accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.id").isEqualTo(1)
+				.jsonPath("$.name").isEqualTo("The Lord of the Rings")
+				.jsonPath("$.categories[0].id").isEqualTo(2);
+	}
+
+	@Test
+	void findByIdShouldReturnNotFoundWhenIdDoesNotExist() {
+		client.get().uri("/products/{id}", 10000L).accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	void findAllShouldReturnPageSortedByName() {
+		client.get().uri("/products?page=0&linesPerPage=5&orderby=name").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(5)
+				.jsonPath("$[0].name").isEqualTo("Macbook Pro")
+				.jsonPath("$[1].name").isEqualTo("PC Gamer");
+	}
+
+	@Test
+	void findAllShouldStreamOneProductPerLineWhenAcceptIsNdjson() {
+		String body = client.get().uri("/products?categoryId=3&page=0&linesPerPage=100")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.expectBody(String.class)
+				.returnResult().getResponseBody();
+
+		String[] lines = body.trim().split("\n");
+		Assertions.assertTrue(lines.length > 1);
+		for (String line : lines) {
+			Assertions.assertTrue(line.startsWith("{\"id\":"));
+		}
+	}
+
+	@Test
+	void findAllCategoriesShouldReturnCategories() {
+		client.get().uri("/categories").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[0].name").isEqualTo("Livros");
+	}
+
+	@Test
+	void writesShouldNotBeServed() {
+		client.delete().uri("/products/{id}", 1L)
+				.exchange()
+				.expectStatus().value(status -> Assertions.assertTrue(status == 401 || status == 403));
+	}
+
+}
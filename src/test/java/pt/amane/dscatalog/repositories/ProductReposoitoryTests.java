@@ -1,5 +1,6 @@
 package pt.amane.dscatalog.repositories;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Assertions;
@@ -78,6 +79,18 @@ class ProductReposoitoryTests {
 		
 	}
 	
+	@Test
+	void softDeleteByIdShouldHideProductWhenIdExists() {
+
+		int updated = repository.softDeleteById(existingId, Instant.now());
+
+		// exclusao logica: a linha continua no banco, mas some das consultas JPA
+		Assertions.assertEquals(1, updated);
+		Assertions.assertTrue(repository.findById(existingId).isEmpty());
+		Assertions.assertEquals(countTotalProducts - 1, repository.count());
+		Assertions.assertEquals(0, repository.softDeleteById(existingId, Instant.now()));
+	}
+
 	@Test
 	void deleteShouldRhrowEmptyResultDataAccessExceptionWhenIdDoesNotExist() {
 		
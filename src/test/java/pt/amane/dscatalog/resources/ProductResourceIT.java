@@ -1,29 +1,55 @@
 package pt.amane.dscatalog.resources;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import pt.amane.dscatalog.converters.CatalogProtobufCodec;
+import pt.amane.dscatalog.converters.CatalogProtobufHttpMessageConverter;
 import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.proto.ProductPage;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+import pt.amane.dscatalog.services.events.CatalogChangeStream;
 import pt.amane.dscatalog.tests.Factory;
 import pt.amane.dscatalog.tests.TokenUtil;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @Transactional
+@RecordApplicationEvents
 class ProductResourceIT {
 
 	@Autowired
@@ -32,6 +58,12 @@ class ProductResourceIT {
 	@Autowired
 	private TokenUtil tokenUtil;
 
+	@Autowired
+	private CatalogChangeStream changeStream;
+
+	@Autowired
+	private ApplicationEvents events;
+
 	// essa anotação é aceite pq o ObjectMapper ele auxilia o objeto
 	// ele nao e a dependencia de produtoresource ou nao interfere em componente..
 	@Autowired
@@ -73,6 +105,221 @@ class ProductResourceIT {
 		result.andExpect(jsonPath("$.content[2].name").value("PC Gamer Alfa"));
 	}
 
+	@Test
+	void findAllByIdsShouldReturnProductsInRequestOrderAndMissingIds() throws Exception {
+
+		ResultActions result = mockMvc
+				.perform(get("/products?ids=3,{missing},1", nonExistingId).accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.products[0].id").value(3L));
+		result.andExpect(jsonPath("$.products[1].id").value(existingId));
+		result.andExpect(jsonPath("$.products[1].categories").isNotEmpty());
+		result.andExpect(jsonPath("$.missingIds[0]").value(nonExistingId));
+	}
+
+	@Test
+	void findAllShouldReturnProtobufPageWhenAcceptIsProtobuf() throws Exception {
+
+		MvcResult result = mockMvc
+				.perform(get("/products?page=0&linesPerPage=5").accept(CatalogProtobufHttpMessageConverter.PROTOBUF))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(CatalogProtobufHttpMessageConverter.PROTOBUF))
+				.andReturn();
+
+		Page<ProductDTO> page = CatalogProtobufCodec
+				.toPage(ProductPage.parseFrom(result.getResponse().getContentAsByteArray()));
+		Assertions.assertEquals(countTotalProducts.longValue(), page.getTotalElements());
+		Assertions.assertEquals(5, page.getContent().size());
+		Assertions.assertEquals("Macbook Pro", page.getContent().get(0).getName());
+	}
+
+	@Test
+	void findByIdShouldReturnJsonErrorWhenAcceptIsProtobufAndIdDoesNotExist() throws Exception {
+
+		ResultActions result = mockMvc.perform(get("/products/{id}", nonExistingId)
+				.accept(CatalogProtobufHttpMessageConverter.PROTOBUF));
+
+		result.andExpect(status().isNotFound());
+		result.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+		result.andExpect(jsonPath("$.status").value(404));
+	}
+
+	@Test
+	void findAllByIdsShouldReturnJsonWhenAcceptIsProtobuf() throws Exception {
+
+		// o lote nao tem esquema Protobuf
+		ResultActions result = mockMvc.perform(get("/products?ids=1,2")
+				.accept(CatalogProtobufHttpMessageConverter.PROTOBUF));
+
+		result.andExpect(status().isOk());
+		result.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+		result.andExpect(jsonPath("$.products[0].id").value(1L));
+	}
+
+	@Test
+	void findChangedSinceShouldReturnChangedProducts() throws Exception {
+
+		ResultActions result = mockMvc.perform(get("/products?updatedSince={since}", Instant.now().minus(1, ChronoUnit.DAYS))
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.fullReloadRequired").value(false));
+		result.andExpect(jsonPath("$.content").isNotEmpty());
+		result.andExpect(jsonPath("$.syncedAt").exists());
+	}
+
+	@Test
+	void findChangedSinceShouldRequireFullReloadWhenSinceIsOlderThanTombstones() throws Exception {
+
+		ResultActions result = mockMvc.perform(get("/products?updatedSince=2000-01-01T00:00:00Z")
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.fullReloadRequired").value(true));
+		result.andExpect(jsonPath("$.content").isEmpty());
+	}
+
+	@Test
+	void findChangedSinceShouldReturnDeletedProductIds() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+		Instant since = Instant.now();
+
+		mockMvc.perform(delete("/products/{id}", existingId).header("Authorization", "Bearer" + accessToken))
+				.andExpect(status().isNoContent());
+
+		ResultActions result = mockMvc.perform(get("/products?updatedSince={since}", since)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.deletedIds").value(hasItem(existingId.intValue())));
+		result.andExpect(jsonPath("$.content[*].id").value(not(hasItem(existingId.intValue()))));
+	}
+
+	@Test
+	void findChangedSinceShouldReturnProductsOfDeletedCategory() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+		Instant since = Instant.now();
+
+		// produto 2 esta nas categorias 1 e 3; produto 1 so na 2
+		mockMvc.perform(delete("/categories/{id}", 3L).header("Authorization", "Bearer" + accessToken))
+				.andExpect(status().isNoContent());
+
+		mockMvc.perform(get("/categories?updatedSince={since}", since).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.deletedIds").value(hasItem(3)));
+
+		ResultActions result = mockMvc.perform(get("/products?updatedSince={since}", since)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(jsonPath("$.content[*].id").value(hasItem(2)));
+		result.andExpect(jsonPath("$.content[*].id").value(not(hasItem(existingId.intValue()))));
+		result.andExpect(jsonPath("$.content[?(@.id == 2)].categories[*].id").value(not(hasItem(3))));
+
+		// stream, outbox e caches recebem um UPDATED por produto com a versao nova
+		List<Long> updated = events.stream(CatalogChangeEvent.class)
+				.filter(e -> e.getType() == CatalogChangeEvent.Type.UPDATED
+						&& CatalogChangeEvent.PRODUCT.equals(e.getEntity()))
+				.map(CatalogChangeEvent::getId).collect(Collectors.toList());
+		Assertions.assertTrue(updated.contains(2L));
+		Assertions.assertFalse(updated.contains(existingId));
+	}
+
+	@Test
+	void changesShouldReplayEventsAfterLastEventId() throws Exception {
+
+		long sequence = changeStream.publish(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED,
+				CatalogChangeEvent.PRODUCT, existingId, 1L));
+
+		MvcResult result = mockMvc.perform(get("/products/changes").header("Last-Event-ID", sequence - 1)
+				.accept(MediaType.TEXT_EVENT_STREAM)).andExpect(request().asyncStarted()).andReturn();
+
+		// os eventos sao enviados por outra thread
+		Awaitility.await().atMost(5, TimeUnit.SECONDS)
+				.until(() -> result.getResponse().getContentAsString().contains("id:" + sequence));
+		Assertions.assertTrue(result.getResponse().getContentAsString().contains("event:updated"));
+	}
+
+	@Test
+	void changesShouldSendOneJsonObjectPerLineWhenAcceptIsNdjson() throws Exception {
+
+		long sequence = changeStream.publish(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED,
+				CatalogChangeEvent.PRODUCT, existingId, 1L));
+
+		MvcResult result = mockMvc.perform(get("/products/changes").header("Last-Event-ID", sequence - 1)
+				.accept(MediaType.APPLICATION_NDJSON)).andExpect(request().asyncStarted()).andReturn();
+
+		Awaitility.await().atMost(5, TimeUnit.SECONDS)
+				.until(() -> result.getResponse().getContentAsString().contains("\"sequence\":" + sequence));
+		for (String line : result.getResponse().getContentAsString().split("\n")) {
+			Assertions.assertTrue(objectMapper.readTree(line).has("type"));
+		}
+	}
+
+	@Test
+	void submitPriceAdjustmentShouldReturnBadRequestWhenCategoryAndIdsAreBothInformed() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+
+		ResultActions result = mockMvc.perform(post("/products/price-adjustments")
+				.header("Authorization", "Bearer " + accessToken)
+				.content("{\"categoryId\": 1, \"productIds\": [1, 2], \"percentage\": 10}")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void findPriceAdjustmentShouldReturnUnauthorizedWithoutToken() throws Exception {
+
+		ResultActions result = mockMvc.perform(get("/products/price-adjustments/{id}", "unknown")
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void poolEndpointShouldReturnForbiddenWhenUserIsOperator() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", password);
+
+		ResultActions result = mockMvc.perform(get("/actuator/pool")
+				.header("Authorization", "Bearer " + accessToken));
+
+		result.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void metricsEndpointShouldReturnUnauthorizedWithoutToken() throws Exception {
+
+		ResultActions result = mockMvc.perform(get("/actuator/metrics"));
+
+		result.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void healthEndpointShouldBePublic() throws Exception {
+
+		ResultActions result = mockMvc.perform(get("/actuator/health"));
+
+		result.andExpect(status().isOk());
+	}
+
+	@Test
+	void poolEndpointShouldReturnPoolsWhenUserIsAdmin() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+
+		ResultActions result = mockMvc.perform(get("/actuator/pool")
+				.header("Authorization", "Bearer " + accessToken));
+
+		result.andExpect(status().isOk());
+	}
+
 	@Test
 	void updateShoudReturnProductDTOWhenIdExists() throws Exception {
 
@@ -114,4 +361,77 @@ class ProductResourceIT {
 		result.andExpect(status().isNotFound());
 	}
 
+	@Test
+	void updateShouldReturnOkWhenLoginEmailDiffersInCaseAndSpaces() throws Exception {
+
+		// o email e normalizado no login, como foi na gravacao
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, "  Maria@GMAIL.com ", password);
+
+		String jsonBody = objectMapper.writeValueAsString(productDTO);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", existingId)
+				.header("Authorization","Bearer" + accessToken)
+				.content(jsonBody)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+	}
+
+	@Test
+	void updateShouldReturnNewETagWhenIfMatchIsCurrentVersion() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+		long version = currentVersion(existingId);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", existingId)
+				.header("Authorization","Bearer" + accessToken)
+				.header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+				.content(objectMapper.writeValueAsString(productDTO))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isOk());
+		result.andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""));
+	}
+
+	@Test
+	void updateShouldReturnConflictWithCurrentETagWhenIfMatchIsStale() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+		long version = currentVersion(existingId);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", existingId)
+				.header("Authorization","Bearer" + accessToken)
+				.header(HttpHeaders.IF_MATCH, "\"" + (version + 5) + "\"")
+				.content(objectMapper.writeValueAsString(productDTO))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isConflict());
+		result.andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "\""));
+	}
+
+	@Test
+	void updateShouldReturnBadRequestWhenIfMatchIsMalformed() throws Exception {
+
+		String accessToken = tokenUtil.obtainAccessToken(mockMvc, username, password);
+
+		ResultActions result = mockMvc.perform(put("/products/{id}", existingId)
+				.header("Authorization","Bearer" + accessToken)
+				.header(HttpHeaders.IF_MATCH, "\"abc\"")
+				.content(objectMapper.writeValueAsString(productDTO))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON));
+
+		result.andExpect(status().isBadRequest());
+	}
+
+	// versao atual lida do ETag do GET
+	private long currentVersion(Long id) throws Exception {
+		String eTag = mockMvc.perform(get("/products/{id}", id).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		return Long.parseLong(eTag.replace("\"", ""));
+	}
+
 }
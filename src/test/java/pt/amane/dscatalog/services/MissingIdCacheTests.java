@@ -0,0 +1,65 @@
+package pt.amane.dscatalog.services;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
+
+class MissingIdCacheTests {
+
+	private MissingIdCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new MissingIdCache(Duration.ofMinutes(1), 100);
+	}
+
+	@Test
+	void markMissingShouldKeepIdPerEntity() {
+
+		cache.markMissing(CatalogChangeEvent.PRODUCT, 10L, cache.stamp(CatalogChangeEvent.PRODUCT));
+
+		Assertions.assertTrue(cache.isMissing(CatalogChangeEvent.PRODUCT, 10L));
+		Assertions.assertFalse(cache.isMissing(CatalogChangeEvent.CATEGORY, 10L));
+		Assertions.assertFalse(cache.isMissing(CatalogChangeEvent.PRODUCT, 11L));
+	}
+
+	@Test
+	void createdEventShouldForgetId() {
+
+		cache.markMissing(CatalogChangeEvent.PRODUCT, 10L, cache.stamp(CatalogChangeEvent.PRODUCT));
+		cache.markMissing(CatalogChangeEvent.PRODUCT, 11L, cache.stamp(CatalogChangeEvent.PRODUCT));
+
+		cache.onChange(new CatalogChangeEvent(CatalogChangeEvent.Type.CREATED, CatalogChangeEvent.PRODUCT, 10L, 0L));
+
+		Assertions.assertFalse(cache.isMissing(CatalogChangeEvent.PRODUCT, 10L));
+		Assertions.assertTrue(cache.isMissing(CatalogChangeEvent.PRODUCT, 11L));
+	}
+
+	@Test
+	void markMissingShouldBeIgnoredWhenSomethingWasCreatedSinceStamp() {
+
+		// a consulta leu a tabela antes do commit do CREATED e so registra depois dele
+		long stamp = cache.stamp(CatalogChangeEvent.CATEGORY);
+		cache.onChange(new CatalogChangeEvent(CatalogChangeEvent.Type.CREATED, CatalogChangeEvent.CATEGORY, 4L, 0L));
+		cache.markMissing(CatalogChangeEvent.CATEGORY, 4L, stamp);
+
+		Assertions.assertFalse(cache.isMissing(CatalogChangeEvent.CATEGORY, 4L));
+	}
+
+	@Test
+	void clearShouldForgetEveryId() {
+
+		cache.markMissing(CatalogChangeEvent.PRODUCT, 10L, cache.stamp(CatalogChangeEvent.PRODUCT));
+		cache.markMissing(CatalogChangeEvent.CATEGORY, 4L, cache.stamp(CatalogChangeEvent.CATEGORY));
+
+		cache.clear();
+
+		Assertions.assertFalse(cache.isMissing(CatalogChangeEvent.PRODUCT, 10L));
+		Assertions.assertFalse(cache.isMissing(CatalogChangeEvent.CATEGORY, 4L));
+	}
+
+}
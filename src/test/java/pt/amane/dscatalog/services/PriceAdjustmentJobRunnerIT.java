@@ -0,0 +1,138 @@
+package pt.amane.dscatalog.services;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import pt.amane.dscatalog.config.CacheConfig;
+import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.services.PriceAdjustmentJob.Status;
+import pt.amane.dscatalog.services.events.CatalogChangeStream;
+
+/**
+ * Sem @Transactional: cada lote do job confirma a propria transacao. Os precos
+ * e versoes alterados voltam ao valor original depois de cada teste.
+ */
+@SpringBootTest
+class PriceAdjustmentJobRunnerIT {
+
+	@Autowired
+	private PriceAdjustmentJobRunner runnerProxy;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CatalogChangeStream changeStream;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// alvo do proxy de @Async: o job roda na thread do teste
+	private PriceAdjustmentJobRunner runner;
+	private ApplicationEventPublisher eventPublisher;
+	private List<Map<String, Object>> original;
+
+	@BeforeEach
+	void setUp() {
+		runner = AopTestUtils.getUltimateTargetObject(runnerProxy);
+		eventPublisher = (ApplicationEventPublisher) ReflectionTestUtils.getField(runner, "eventPublisher");
+		original = jdbcTemplate.queryForList("SELECT id, price, version, updated_at FROM tb_product");
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReflectionTestUtils.setField(runner, "chunkSize", 500);
+		ReflectionTestUtils.setField(runner, "eventPublisher", eventPublisher);
+		for (Map<String, Object> row : original) {
+			jdbcTemplate.update("UPDATE tb_product SET price = ?, version = ?, updated_at = ? WHERE id = ?",
+					row.get("PRICE"), row.get("VERSION"), row.get("UPDATED_AT"), row.get("ID"));
+		}
+		cacheManager.getCache(CacheConfig.PRODUCTS).clear();
+		cacheManager.getCache(CacheConfig.RESPONSES).clear();
+	}
+
+	@Test
+	void runShouldMultiplyPricesRoundedToCents() {
+
+		PriceAdjustmentJob job = new PriceAdjustmentJob(List.of(1L, 5L), 1.1, null);
+
+		runner.run(job);
+
+		Assertions.assertEquals(Status.COMPLETED, job.status);
+		Assertions.assertEquals(2, job.updated);
+		// 90.5 * 1.1 = 99.55; 100.99 * 1.1 = 111.089 -> 111.09
+		Assertions.assertEquals(99.55, price(1L));
+		Assertions.assertEquals(111.09, price(5L));
+	}
+
+	@Test
+	void runShouldSkipProductsWhosePriceWouldNotBePositive() {
+
+		PriceAdjustmentJob job = new PriceAdjustmentJob(List.of(1L, 5L), null, -95.0);
+
+		runner.run(job);
+
+		Assertions.assertEquals(Status.COMPLETED, job.status);
+		Assertions.assertEquals(2, job.processed);
+		Assertions.assertEquals(1, job.updated);
+		Assertions.assertEquals(90.5, price(1L));
+		Assertions.assertEquals(5.99, price(5L), 0.000001);
+	}
+
+	@Test
+	void runShouldEvictCachedProductsAndPublishChangesOfUpdatedRowsOnly() {
+
+		productService.findById(1L);
+		productService.findById(5L);
+		long sequence = changeStream.lastSequence();
+
+		runner.run(new PriceAdjustmentJob(List.of(1L, 5L), null, -95.0));
+
+		// so o produto 5 mudou: um evento, e so ele sai do cache
+		Assertions.assertEquals(sequence + 1, changeStream.lastSequence());
+		Assertions.assertNotNull(cacheManager.getCache(CacheConfig.PRODUCTS).get(1L));
+		Assertions.assertNull(cacheManager.getCache(CacheConfig.PRODUCTS).get(5L));
+		ProductDTO dto = productService.findById(5L);
+		Assertions.assertEquals(5.99, dto.getPrice(), 0.000001);
+	}
+
+	@Test
+	void runShouldStopBeforeNextChunkWhenCancelled() {
+
+		PriceAdjustmentJob job = new PriceAdjustmentJob(List.of(2L, 3L, 4L), 2.0, null);
+		ReflectionTestUtils.setField(runner, "chunkSize", 1);
+		// cancelado durante o primeiro lote, como um DELETE vindo de outra requisicao
+		ReflectionTestUtils.setField(runner, "eventPublisher", (ApplicationEventPublisher) event -> {
+			job.cancelRequested = true;
+			eventPublisher.publishEvent(event);
+		});
+
+		runner.run(job);
+
+		Assertions.assertEquals(Status.CANCELLED, job.status);
+		Assertions.assertEquals(1, job.processed);
+		Assertions.assertEquals(4380.0, price(2L));
+		Assertions.assertEquals(1250.0, price(3L));
+		Assertions.assertEquals(1200.0, price(4L));
+	}
+
+	private double price(Long id) {
+		return jdbcTemplate.queryForObject("SELECT price FROM tb_product WHERE id = ?", Double.class, id);
+	}
+
+}
@@ -1,5 +1,15 @@
 package pt.amane.dscatalog.services;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,7 +20,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
+import pt.amane.dscatalog.dtos.CategoryDTO;
 import pt.amane.dscatalog.dtos.ProductDTO;
+import pt.amane.dscatalog.entities.Product;
+import pt.amane.dscatalog.repositories.CategoryRepository;
 import pt.amane.dscatalog.repositories.ProductRepository;
 import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
 
@@ -34,6 +47,18 @@ class ProductServiceIT {
 	@Autowired
 	private ProductRepository repository;
 
+	@Autowired
+	private CatalogPurgeService purgeService;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	private Long existingId;
 	private Long nonExisting;
 	private Long countTotalProducts;
@@ -54,6 +79,19 @@ class ProductServiceIT {
 		Assertions.assertEquals(countTotalProducts - 1, repository.count());
 	}
 
+	@Test
+	void purgeShouldRemoveSoftDeletedProductsAfterRetention() {
+
+		service.delete(existingId);
+
+		// ainda dentro da retencao: nada e apagado de vez
+		Assertions.assertEquals(0, purgeService.purgeDeletedBefore(Instant.now().minusSeconds(60)));
+		Assertions.assertEquals(1, purgeService.purgeDeletedBefore(Instant.now().plusSeconds(1)));
+		Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+			service.delete(existingId);
+		});
+	}
+
 	@Test
 	void deleteShouldThrowResourceNotFoundExceptionWhenIdDoesNotExist() {
 
@@ -101,4 +139,65 @@ class ProductServiceIT {
 		Assertions.assertEquals("PC Gamer Alfa", result.getContent().get(2).getName());
 	}
 
+	@Test
+	void saveAllShouldBatchProductAndCategoryInsertsWhenIdsComeFromSequence() {
+
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Product product = new Product(null, "Batch " + i, "Batch product", 10.0 + i, "https://img.com/img.png",
+					Instant.now());
+			product.getCategories().add(categoryRepository.getOne(1L));
+			product.getCategories().add(categoryRepository.getOne(2L));
+			products.add(product);
+		}
+		Statistics statistics = statistics();
+
+		repository.saveAll(products);
+		repository.flush();
+
+		// no maximo um nextval (bloco de 50 ids), um INSERT de produto e um de links, executados em batch
+		Assertions.assertEquals(10, statistics.getEntityInsertCount());
+		Assertions.assertTrue(statistics.getPrepareStatementCount() <= 3,
+				"statements: " + statistics.getPrepareStatementCount());
+		statistics.setStatisticsEnabled(false);
+	}
+
+	@Test
+	void updateShouldWriteCategoryLinksInOneBatchWhenCategoriesChange() {
+
+		ProductDTO dto = new ProductDTO(repository.findById(existingId).orElseThrow());
+		dto.setCategories(List.of(new CategoryDTO(1L, null), new CategoryDTO(2L, null), new CategoryDTO(3L, null)));
+		entityManager.clear();
+		Statistics statistics = statistics();
+
+		service.update(existingId, dto);
+
+		// SELECT do produto e das categorias, UPDATE, DELETE dos links e um INSERT em batch dos tres
+		long statements = statistics.getPrepareStatementCount();
+		statistics.setStatisticsEnabled(false);
+		entityManager.clear();
+		Assertions.assertEquals(3, repository.findById(existingId).orElseThrow().getCategories().size());
+		Assertions.assertTrue(statements <= 5, "statements: " + statements);
+	}
+
+	@Test
+	void findAllByIdsShouldReturnCopiesOfCachedProducts() {
+
+		ProductDTO first = service.findAllByIds(List.of(existingId)).getProducts().get(0);
+		first.setName("Changed by caller");
+		first.getCategories().clear();
+
+		// segunda chamada vem do cache e nao ve a alteracao da primeira
+		ProductDTO second = service.findAllByIds(List.of(existingId)).getProducts().get(0);
+		Assertions.assertEquals("The Lord of the Rings", second.getName());
+		Assertions.assertFalse(second.getCategories().isEmpty());
+	}
+
+	private Statistics statistics() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		return statistics;
+	}
+
 }
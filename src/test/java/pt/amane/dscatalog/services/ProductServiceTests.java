@@ -1,7 +1,7 @@
 package pt.amane.dscatalog.services;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.eq;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,8 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -29,7 +28,7 @@ import pt.amane.dscatalog.entities.Category;
 import pt.amane.dscatalog.entities.Product;
 import pt.amane.dscatalog.repositories.CategoryRepository;
 import pt.amane.dscatalog.repositories.ProductRepository;
-import pt.amane.dscatalog.services.exceptions.DataBaseIntegrityViolationException;
+import pt.amane.dscatalog.services.events.CatalogChangeEvent;
 import pt.amane.dscatalog.services.exceptions.ResourceNotFoundException;
 import pt.amane.dscatalog.tests.Factory;
 
@@ -48,9 +47,14 @@ class ProductServiceTests {
 	@Mock
 	private CategoryRepository categoryRepository;
 
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private MissingIdCache missingIds;
+
 	private long existingId;
 	private long nonExistingId;
-	private long dependentId;
 	private PageImpl<Product> page;
 	private Product product;
 	private Category category;
@@ -60,7 +64,6 @@ class ProductServiceTests {
 	void setUp() throws Exception {
 		existingId = 1L;
 		nonExistingId = 10000L;
-		dependentId = 3L;
 		product = Factory.createProduct();
 		category = Factory.createCategory();
 		productDTO = Factory.createProductDTO();
@@ -79,30 +82,23 @@ class ProductServiceTests {
 		Mockito.when(repository.save(any())).thenReturn(product);
 		
 		// of() retorna um objecto no metodo optional..
-		Mockito.when(repository.findById(existingId)).thenReturn(Optional.of(product));
+		Mockito.when(repository.findWithCategoriesById(existingId)).thenReturn(Optional.of(product));
 		
-		Mockito.when(repository.findById(nonExistingId)).thenReturn(Optional.of(product));
+		Mockito.when(repository.findWithCategoriesById(nonExistingId)).thenReturn(Optional.of(product));
 		
 		Mockito.when(repository.getOne(existingId)).thenReturn(product);
 		
 		Mockito.when(repository.getOne(nonExistingId)).thenThrow(EntityNotFoundException.class);
 		
-		Mockito.when(categoryRepository.getOne(existingId)).thenReturn(category);
+		Mockito.when(categoryRepository.findAllById(List.of(existingId))).thenReturn(List.of(category));
 		
-		Mockito.when(categoryRepository.getOne(nonExistingId)).thenThrow(EntityNotFoundException.class);
 		
 		
-		
-		// nao faça ou nao retorna nada nesse metodo..
-		Mockito.doNothing().when(repository).deleteById(existingId);
-
-		// pega exception quando passamos id q nao existe no delete Bd..
-		Mockito.doThrow(EmptyResultDataAccessException.class).when(repository).deleteById(nonExistingId);
+		// exclusao logica: devolve quantas linhas foram marcadas..
+		Mockito.when(repository.softDeleteById(eq(existingId), any())).thenReturn(1);
 
-		// Mockito pode ser feito um import satico. por ex:
-		// doNothing().when(repository).deleteById(existingId);
-		// e outros sem passar Mockito.nome de metodo..
-		doThrow(DataIntegrityViolationException.class).when(repository).deleteById(dependentId);
+		// id q nao existe (ou ja excluido) nao marca nenhuma linha..
+		Mockito.when(repository.softDeleteById(eq(nonExistingId), any())).thenReturn(0);
 
 	}
 	
@@ -131,6 +127,26 @@ class ProductServiceTests {
 		ProductDTO result = service.findById(existingId);
 		Assertions.assertNotNull(result);
 	}
+
+	@Test
+	void findByIdShouldRecordMissingIdWhenIdDoesNotExist() {
+		Mockito.when(missingIds.stamp(CatalogChangeEvent.PRODUCT)).thenReturn(7L);
+
+		Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+			service.findById(1000L);
+		});
+		Mockito.verify(missingIds).markMissing(CatalogChangeEvent.PRODUCT, 1000L, 7L);
+	}
+
+	@Test
+	void findByIdShouldNotQueryWhenIdIsKnownMissing() {
+		Mockito.when(missingIds.isMissing(CatalogChangeEvent.PRODUCT, 1000L)).thenReturn(true);
+
+		Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+			service.findById(1000L);
+		});
+		Mockito.verify(repository, Mockito.never()).findWithCategoriesById(any());
+	}
 	
 		
 	@Test
@@ -147,8 +163,8 @@ class ProductServiceTests {
 			service.delete(existingId);
 		});
 
-		// verifica se o metodo deleteById foi chamado pelo repository..
-		Mockito.verify(repository, Mockito.times(1)).deleteById(existingId);
+		// verifica se o metodo softDeleteById foi chamado pelo repository..
+		Mockito.verify(repository, Mockito.times(1)).softDeleteById(eq(existingId), any());
 
 	}
 
@@ -158,19 +174,9 @@ class ProductServiceTests {
 			service.delete(nonExistingId);
 		});
 
-		// verifica se o metodo deleteById foi chamado pelo repository..
-		Mockito.verify(repository, Mockito.times(1)).deleteById(nonExistingId);
-
-	}
-
-	@Test
-	void deleteShouldThrowDataIntegrityViolationExceptionWhenIdDoesNotExists() {
-		Assertions.assertThrows(DataBaseIntegrityViolationException.class, () -> {
-			service.delete(dependentId);
-		});
-
-		// verifica se o metodo deleteById foi chamado pelo repository..
-		Mockito.verify(repository, Mockito.times(1)).deleteById(dependentId);
+		// verifica se o metodo softDeleteById foi chamado pelo repository..
+		Mockito.verify(repository, Mockito.times(1)).softDeleteById(eq(nonExistingId), any());
+		Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any());
 
 	}
 }
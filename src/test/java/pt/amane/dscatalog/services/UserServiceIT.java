@@ -0,0 +1,92 @@
+package pt.amane.dscatalog.services;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import pt.amane.dscatalog.components.CatalogDataGenerator;
+import pt.amane.dscatalog.dtos.UserDTO;
+import pt.amane.dscatalog.dtos.UserInsertDTO;
+import pt.amane.dscatalog.resources.exceptions.ResourceExceptionHandler;
+import pt.amane.dscatalog.services.exceptions.FieldValidationException;
+
+@SpringBootTest
+@Transactional
+class UserServiceIT {
+
+	@Autowired
+	private UserService service;
+
+	@Autowired
+	private CatalogDataGenerator generator;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		statistics.setStatisticsEnabled(false);
+	}
+
+	@Test
+	void findAllPagedShouldLoadRolesWithFixedNumberOfQueriesWhenPageIsLarge() {
+
+		generator.generate(0, 0, 50);
+		// nada no contexto de persistencia: todos os usuarios vem do banco
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		Page<UserDTO> page = service.findAllPaged(PageRequest.of(0, 40, Sort.by("id")));
+
+		// pagina, count e perfis, nao uma consulta de perfis por usuario
+		Assertions.assertEquals(40, page.getNumberOfElements());
+		Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+		Assertions.assertTrue(page.getContent().stream().allMatch(user -> !user.getRoleDTOs().isEmpty()));
+	}
+
+	@Test
+	void createShouldAnswerUnprocessableEntityWhenUniqueIndexRejectsEmail() {
+
+		// chamada direta ao service: pula a validacao, como dois cadastros simultaneos
+		UserInsertDTO dto = new UserInsertDTO();
+		dto.setFirstName("Alex");
+		dto.setLastName("Clone");
+		dto.setEmail(" ALEX@gmail.com");
+		dto.setPassword("123456");
+
+		FieldValidationException e = Assertions.assertThrows(FieldValidationException.class, () -> {
+			service.create(dto);
+		});
+
+		Assertions.assertEquals("email", e.getFieldName());
+		Assertions.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+				new ResourceExceptionHandler().fieldValidation(e, new MockHttpServletRequest()).getStatusCode());
+	}
+
+}
@@ -0,0 +1,36 @@
+package pt.amane.dscatalog.services.exceptions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ResourceNotFoundExceptionTests {
+
+	@AfterEach
+	void tearDown() {
+		ServiceException.setStackTraces(false);
+	}
+
+	@Test
+	void constructorShouldSkipStackTraceWhenStackTracesAreOff() {
+
+		ServiceException.setStackTraces(false);
+
+		ResourceNotFoundException e = new ResourceNotFoundException("Product", 10L);
+
+		Assertions.assertEquals(0, e.getStackTrace().length);
+		Assertions.assertEquals("Id not found! Id: 10, Type: Product", e.getMessage());
+	}
+
+	@Test
+	void constructorShouldCaptureStackTraceWhenStackTracesAreOn() {
+
+		ServiceException.setStackTraces(true);
+
+		ResourceNotFoundException e = new ResourceNotFoundException("Id not found! Id: 10");
+
+		Assertions.assertTrue(e.getStackTrace().length > 0);
+		Assertions.assertEquals("Id not found! Id: 10", e.getMessage());
+	}
+
+}
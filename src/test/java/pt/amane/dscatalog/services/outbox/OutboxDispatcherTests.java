@@ -0,0 +1,82 @@
+package pt.amane.dscatalog.services.outbox;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pt.amane.dscatalog.entities.OutboxEvent;
+import pt.amane.dscatalog.repositories.OutboxEventRepository;
+
+@ExtendWith(SpringExtension.class)
+class OutboxDispatcherTests {
+
+	@InjectMocks
+	private OutboxDispatcher dispatcher;
+
+	@Mock
+	private OutboxEventRepository repository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private InMemoryOutboxSink sink;
+	private MeterRegistry meterRegistry;
+	private List<OutboxEvent> batch;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() throws Exception {
+		sink = new InMemoryOutboxSink();
+		meterRegistry = new SimpleMeterRegistry();
+		ReflectionTestUtils.setField(dispatcher, "sinks", List.of(sink));
+		ReflectionTestUtils.setField(dispatcher, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(dispatcher, "batchSize", 2);
+		ReflectionTestUtils.setField(dispatcher, "parallelism", 1);
+		dispatcher.init();
+
+		batch = List.of(new OutboxEvent("product", 1L, "UPDATED", "{}"), new OutboxEvent("product", 2L, "DELETED", "{}"));
+
+		Mockito.when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+		Mockito.when(repository.findBatchForDispatch(any(Pageable.class))).thenReturn(batch, List.of());
+	}
+
+	@Test
+	void pollShouldDeliverAndDeleteBatchesUntilOutboxIsEmpty() {
+
+		dispatcher.poll();
+
+		Assertions.assertEquals(2, sink.getDelivered().size());
+		Mockito.verify(repository, Mockito.times(1)).deleteInBatch(batch);
+		Assertions.assertEquals(2.0, meterRegistry.counter("dscatalog.outbox.dispatched").count());
+	}
+
+	@Test
+	void pollShouldKeepBatchWhenSinkFails() throws Exception {
+		OutboxSink failing = Mockito.mock(OutboxSink.class);
+		Mockito.doThrow(new IOException("sink down")).when(failing).deliver(any());
+		ReflectionTestUtils.setField(dispatcher, "sinks", List.of(failing));
+
+		dispatcher.poll();
+
+		Mockito.verify(repository, Mockito.never()).deleteInBatch(any());
+		Assertions.assertEquals(1.0, meterRegistry.counter("dscatalog.outbox.failures").count());
+	}
+
+}
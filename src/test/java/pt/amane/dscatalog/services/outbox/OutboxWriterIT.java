@@ -0,0 +1,82 @@
+package pt.amane.dscatalog.services.outbox;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import pt.amane.dscatalog.dtos.CategoryDTO;
+import pt.amane.dscatalog.entities.OutboxEvent;
+import pt.amane.dscatalog.repositories.CategoryRepository;
+import pt.amane.dscatalog.repositories.OutboxEventRepository;
+import pt.amane.dscatalog.services.CategoryService;
+
+/**
+ * Transacoes reais (sem @Transactional no teste); o dispatcher so roda na
+ * subida, para nao entregar os eventos no meio do teste.
+ */
+@SpringBootTest(properties = { "dscatalog.outbox.enabled=true", "dscatalog.outbox.poll-interval=3600000" })
+class OutboxWriterIT {
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private OutboxEventRepository repository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long createdId;
+
+	@AfterEach
+	void tearDown() {
+		repository.deleteAll();
+		if (createdId != null) {
+			jdbcTemplate.update("DELETE FROM tb_category WHERE id = ?", createdId);
+		}
+	}
+
+	@Test
+	void rollbackShouldDiscardChangeAndItsOutboxEvent() {
+
+		long before = repository.count();
+
+		Long id = transactionTemplate.execute(status -> {
+			CategoryDTO dto = categoryService.create(new CategoryDTO(null, "Outbox rollback"));
+			// mesma transacao: o evento ja esta la
+			Assertions.assertEquals(before + 1, repository.count());
+			status.setRollbackOnly();
+			return dto.getId();
+		});
+
+		Assertions.assertEquals(before, repository.count());
+		Assertions.assertFalse(categoryRepository.existsById(id));
+	}
+
+	@Test
+	void commitShouldKeepOutboxEventOfChange() {
+
+		CategoryDTO dto = categoryService.create(new CategoryDTO(null, "Outbox commit"));
+		createdId = dto.getId();
+
+		List<OutboxEvent> events = repository.findAll().stream()
+				.filter(event -> createdId.equals(event.getAggregateId())).collect(Collectors.toList());
+		Assertions.assertEquals(1, events.size());
+		Assertions.assertEquals("category", events.get(0).getAggregateType());
+		Assertions.assertEquals("CREATED", events.get(0).getEventType());
+	}
+
+}
@@ -0,0 +1,50 @@
+package pt.amane.dscatalog.services.validation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class EmailBloomFilterTests {
+
+	private EmailBloomFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		filter = new EmailBloomFilter(10000, 0.01);
+		ReflectionTestUtils.setField(filter, "loaded", true);
+	}
+
+	@Test
+	public void mightContainShouldBeTrueForEveryAddedEmail() {
+		for (int i = 0; i < 10000; i++) {
+			filter.put("user" + i + "@loadtest.local");
+		}
+		for (int i = 0; i < 10000; i++) {
+			Assertions.assertTrue(filter.mightContain("user" + i + "@loadtest.local"));
+		}
+	}
+
+	@Test
+	public void falsePositiveRateShouldStayNearConfiguredRate() {
+		for (int i = 0; i < 10000; i++) {
+			filter.put("user" + i + "@loadtest.local");
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100000; i++) {
+			if (filter.mightContain("new" + i + "@signup.local")) {
+				falsePositives++;
+			}
+		}
+		// 1% configurado; folga para a variacao
+		Assertions.assertTrue(falsePositives < 2000, "false positives: " + falsePositives);
+	}
+
+	@Test
+	public void mightContainShouldBeTrueBeforeLoad() {
+		ReflectionTestUtils.setField(filter, "loaded", false);
+
+		Assertions.assertTrue(filter.mightContain("nobody@signup.local"));
+	}
+
+}